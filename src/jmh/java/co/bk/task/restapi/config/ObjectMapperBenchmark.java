@@ -0,0 +1,87 @@
+package co.bk.task.restapi.config;
+
+import co.bk.task.restapi.model.ChargeSessionFixtures;
+import co.bk.task.restapi.service.dto.ChargeSessionDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON (de)serialization of a list of charge sessions with the ObjectMapper configured in ApplicationConfig, i.e. the
+ * body of GET /charge-sessions.
+ *
+ * serialize uses ChargeSessionDtoSerializer, serializeBeanSerializer Jackson's reflective bean serializer it replaced.
+ * serializeToStream writes to an output stream as the HTTP message converter does, without building the byte array.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ObjectMapperBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    private int size;
+
+    private List<ChargeSessionDto> chargeSessionDtos;
+
+    private byte[] json;
+
+    private ObjectWriter writer;
+
+    private ObjectWriter beanSerializerWriter;
+
+    private ObjectReader reader;
+
+    @Setup
+    public void setup() throws JsonProcessingException {
+        ObjectMapper objectMapper = new ApplicationConfig().defaultObjectMapper();
+        JavaType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, ChargeSessionDto.class);
+        writer = objectMapper.writerFor(listType);
+        beanSerializerWriter = new ApplicationConfig().defaultObjectMapper()
+                .addMixIn(ChargeSessionDto.class, BeanSerialized.class)
+                .writerFor(listType);
+        reader = objectMapper.readerForListOf(ChargeSessionDto.class);
+        chargeSessionDtos = ChargeSessionFixtures.chargeSessionDtos(size);
+        json = writer.writeValueAsBytes(chargeSessionDtos);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return writer.writeValueAsBytes(chargeSessionDtos);
+    }
+
+    @Benchmark
+    public byte[] serializeBeanSerializer() throws JsonProcessingException {
+        return beanSerializerWriter.writeValueAsBytes(chargeSessionDtos);
+    }
+
+    @Benchmark
+    public void serializeToStream() throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), chargeSessionDtos);
+    }
+
+    @Benchmark
+    public List<ChargeSessionDto> deserialize() throws IOException {
+        return reader.readValue(json);
+    }
+
+    @JsonSerialize(using = JsonSerializer.None.class)
+    private interface BeanSerialized {
+    }
+}
@@ -0,0 +1,65 @@
+package co.bk.task.restapi.model;
+
+import co.bk.task.restapi.service.converter.ChargeSessionConverter;
+import co.bk.task.restapi.service.dto.ChargeSessionDto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Charge session history of a single vehicle for the benchmarks. Generated from a fixed seed so every run (and every
+ * commit) measures the same data: unordered start times, 5% open sessions and costs at the scale persisted.
+ */
+public final class ChargeSessionFixtures {
+
+    public static final long VEHICLE_ID = 10L;
+
+    private static final long SEED = 42L;
+
+    private static final long EPOCH_MILLIS = 1_690_000_000_000L;
+
+    private ChargeSessionFixtures() {
+    }
+
+    public static Vehicle vehicle() {
+        Vehicle vehicle = Vehicle.createVehicle("22-WW-12345");
+        vehicle.setId(VEHICLE_ID);
+        return vehicle;
+    }
+
+    public static List<ChargeSession> chargeSessions(int size) {
+
+        Random random = new Random(SEED);
+        Vehicle vehicle = vehicle();
+        List<ChargePoint> chargePoints = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            ChargePoint chargePoint = ChargePoint.createChargePoint("charger-model-x" + id, 11.0 * id);
+            chargePoint.setId(id);
+            chargePoints.add(chargePoint);
+        }
+
+        List<ChargeSession> chargeSessions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            long startTime = EPOCH_MILLIS + (long) (random.nextDouble() * 365 * 24 * 3_600_000L);
+            boolean open = random.nextInt(20) == 0;
+
+            ChargeSession chargeSession = new ChargeSession(vehicle, chargePoints.get(random.nextInt(chargePoints.size())));
+            chargeSession.setId(1_000L + i);
+            chargeSession.setStartTime(startTime);
+            if (!open) {
+                chargeSession.setEndTime(startTime + 60_000L + random.nextInt(8 * 3_600_000));
+                chargeSession.setTotalCost(BigDecimal.valueOf(100 + random.nextInt(10_000), 2).setScale(8, RoundingMode.UNNECESSARY));
+            }
+            chargeSessions.add(chargeSession);
+        }
+        return chargeSessions;
+    }
+
+    public static List<ChargeSessionDto> chargeSessionDtos(int size) {
+        ChargeSessionConverter chargeSessionConverter = new ChargeSessionConverter();
+        return chargeSessions(size).stream().map(chargeSessionConverter::convert).toList();
+    }
+}
@@ -0,0 +1,84 @@
+package co.bk.task.restapi.service;
+
+import co.bk.task.restapi.model.ChargeSessionFixtures;
+import co.bk.task.restapi.model.Vehicle;
+import co.bk.task.restapi.repository.ChargePointRepository;
+import co.bk.task.restapi.repository.ChargeSessionListRepository;
+import co.bk.task.restapi.repository.VehicleChargeRollupRepository;
+import co.bk.task.restapi.repository.VehicleRepository;
+import co.bk.task.restapi.service.converter.ChargeSessionConverter;
+import co.bk.task.restapi.service.dto.ChargeSessionDto;
+import co.bk.task.restapi.service.dto.ChargeSessionPageDto;
+import co.bk.task.restapi.service.journal.ChargeSessionEndJournal;
+import co.bk.task.restapi.service.tariff.TariffEngine;
+import co.bk.task.restapi.util.ChargeSessionFilter;
+import co.bk.task.restapi.util.SortParameterEnum;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Service side of GET /charge-sessions: vehicle lookup, trimming the page of sessions (read as DTO projections) and
+ * creation of the next page cursor. Repositories are stubbed with in-memory data so the database is not part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChargeSessionServiceBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    private int size;
+
+    @Param({ "START_TIME_DESC", "END_TIME_ASC" })
+    private SortParameterEnum sortedBy;
+
+    private ChargeSessionService chargeSessionService;
+
+    @Setup
+    public void setup() {
+        Vehicle vehicle = ChargeSessionFixtures.vehicle();
+        // One more session than the page size so the service builds a next page cursor
+        List<ChargeSessionDto> chargeSessions = ChargeSessionFixtures.chargeSessionDtos(size + 1);
+
+        VehicleRepository vehicleRepository = stub(VehicleRepository.class, "findById", args -> Optional.of(vehicle));
+        ChargeSessionListRepository chargeSessionListRepository = stub(ChargeSessionListRepository.class, "findDtoPageForVehicle",
+                args -> chargeSessions.subList(0, Math.min((Integer) args[4], chargeSessions.size())));
+
+        chargeSessionService = new ChargeSessionService(new TariffEngine(0.50), chargeSessionListRepository, vehicleRepository,
+                stub(ChargePointRepository.class, "findById", args -> Optional.empty()), new ChargeSessionConverter(),
+                new ChargeSessionMetrics(new SimpleMeterRegistry()),
+                new VehicleChargeSummaryService(stub(VehicleChargeRollupRepository.class, "findBuckets", args -> List.of()), vehicleRepository),
+                new VehicleLocks(1024, Duration.ofSeconds(5)),
+                new OptimisticLockRetry(TransactionOperations.withoutTransaction(), 3, Duration.ZERO),
+                new ChargeSessionEndJournal(), null);
+    }
+
+    @Benchmark
+    public ChargeSessionPageDto getChargeSessionsForVehicleSorted() {
+        return chargeSessionService.getChargeSessionsForVehicleSorted(ChargeSessionFixtures.VEHICLE_ID, ChargeSessionFilter.NONE, sortedBy, null, size);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> repositoryType, String methodName, Function<Object[], Object> answer) {
+        return (T) Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[] { repositoryType }, (proxy, method, args) -> {
+            if (method.getName().equals(methodName)) {
+                return answer.apply(args);
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+}
@@ -0,0 +1,47 @@
+package co.bk.task.restapi.service.converter;
+
+import co.bk.task.restapi.model.ChargeSession;
+import co.bk.task.restapi.model.ChargeSessionFixtures;
+import co.bk.task.restapi.service.dto.ChargeSessionDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO conversion of a vehicle's charge session history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChargeSessionConverterBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    private int size;
+
+    private final ChargeSessionConverter chargeSessionConverter = new ChargeSessionConverter();
+
+    private List<ChargeSession> chargeSessions;
+
+    @Setup
+    public void setup() {
+        chargeSessions = ChargeSessionFixtures.chargeSessions(size);
+    }
+
+    @Benchmark
+    public List<ChargeSessionDto> convert() {
+        List<ChargeSessionDto> chargeSessionDtos = new ArrayList<>(chargeSessions.size());
+        for (ChargeSession chargeSession : chargeSessions) {
+            chargeSessionDtos.add(chargeSessionConverter.convert(chargeSession));
+        }
+        return chargeSessionDtos;
+    }
+}
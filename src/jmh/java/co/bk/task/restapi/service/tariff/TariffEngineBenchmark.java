@@ -0,0 +1,110 @@
+package co.bk.task.restapi.service.tariff;
+
+import co.bk.task.restapi.model.ChargeSession;
+import co.bk.task.restapi.model.ChargeSessionFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of ending every session in a vehicle's history: the fixed-point TariffEngine against the BigDecimal calculation
+ * it replaced (kept here as the baseline).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TariffEngineBenchmark {
+
+    private static final double COST_OF_POWER_PER_KWH = 0.50;
+
+    private static final BigDecimal MINIMUM_CONNECTION_FEE = new BigDecimal(1);
+
+    private static final Long MILLISECONDS_IN_HOUR = 60 * 60 * 1000L;
+
+    @Param({ "10", "1000", "100000" })
+    private int size;
+
+    private final TariffEngine tariffEngine = new TariffEngine(COST_OF_POWER_PER_KWH);
+
+    private long[] durationMillis;
+
+    private double[] chargingPowerKw;
+
+    private double[] batteryCapacityKwh;
+
+    private double[] batteryLevelPercent;
+
+    @Setup
+    public void setup() {
+        List<ChargeSession> chargeSessions = ChargeSessionFixtures.chargeSessions(size);
+        durationMillis = new long[size];
+        chargingPowerKw = new double[size];
+        batteryCapacityKwh = new double[size];
+        batteryLevelPercent = new double[size];
+        for (int i = 0; i < size; i++) {
+            ChargeSession chargeSession = chargeSessions.get(i);
+            durationMillis[i] = chargeSession.getEndTime() == null ? 3_600_000L : chargeSession.getEndTime() - chargeSession.getStartTime();
+            chargingPowerKw[i] = chargeSession.getChargePoint().getChargingPowerKw();
+            batteryCapacityKwh[i] = chargeSession.getVehicle().getBatteryCapacityKwh();
+            // Spread the state of charge over 0% to 100% so both the duration and battery limited branches run
+            batteryLevelPercent[i] = (i * 7) % 101;
+        }
+    }
+
+    @Benchmark
+    public void tariffEngine(Blackhole blackhole) {
+        for (int i = 0; i < size; i++) {
+            long energyConsumed = tariffEngine.energyConsumedMicroJoules(durationMillis[i], chargingPowerKw[i], batteryCapacityKwh[i], batteryLevelPercent[i]);
+            blackhole.consume(tariffEngine.sessionCostMicroCents(energyConsumed));
+        }
+    }
+
+    @Benchmark
+    public void tariffEngineToEuros(Blackhole blackhole) {
+        for (int i = 0; i < size; i++) {
+            long energyConsumed = tariffEngine.energyConsumedMicroJoules(durationMillis[i], chargingPowerKw[i], batteryCapacityKwh[i], batteryLevelPercent[i]);
+            blackhole.consume(TariffEngine.toEuros(tariffEngine.sessionCostMicroCents(energyConsumed)));
+        }
+    }
+
+    @Benchmark
+    public void bigDecimalBaseline(Blackhole blackhole) {
+        for (int i = 0; i < size; i++) {
+            blackhole.consume(bigDecimalCost(durationMillis[i], chargingPowerKw[i], batteryCapacityKwh[i], batteryLevelPercent[i]));
+        }
+    }
+
+    private static BigDecimal bigDecimalCost(long durationMillis, Double chargingPowerKw, Double batteryCapacity, Double batteryLevelPercentAtStart) {
+
+        if (batteryLevelPercentAtStart < Double.valueOf("100")) {
+
+            BigDecimal durationChargeSessionInHours = new BigDecimal(durationMillis)
+                    .divide(new BigDecimal(MILLISECONDS_IN_HOUR), new MathContext(18, RoundingMode.HALF_EVEN));
+
+            BigDecimal maxEnergyDeliveredDuringSession = new BigDecimal(chargingPowerKw).multiply(
+                    durationChargeSessionInHours, new MathContext(18, RoundingMode.HALF_EVEN));
+
+            BigDecimal energyRequiredByBatteryToFullyCharge = new BigDecimal(String.valueOf(batteryCapacity * (100 - batteryLevelPercentAtStart) / 100));
+
+            BigDecimal energyConsumedKwh = energyRequiredByBatteryToFullyCharge.compareTo(maxEnergyDeliveredDuringSession) > 0
+                    ? maxEnergyDeliveredDuringSession
+                    : energyRequiredByBatteryToFullyCharge;
+
+            return energyConsumedKwh.multiply(new BigDecimal(COST_OF_POWER_PER_KWH), new MathContext(18, RoundingMode.HALF_EVEN))
+                    .add(MINIMUM_CONNECTION_FEE);
+        }
+        return MINIMUM_CONNECTION_FEE;
+    }
+}
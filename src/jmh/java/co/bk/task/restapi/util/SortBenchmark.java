@@ -0,0 +1,57 @@
+package co.bk.task.restapi.util;
+
+import co.bk.task.restapi.model.ChargeSessionFixtures;
+import co.bk.task.restapi.service.dto.ChargeSessionDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory sort of a vehicle's charge sessions for each sort parameter, as ChargeSessionService did before sorting
+ * moved into the database. EndTimeComparator remains the reference ordering for the endTime sorts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SortBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    private int size;
+
+    @Param({ "START_TIME_ASC", "START_TIME_DESC", "END_TIME_ASC", "END_TIME_DESC" })
+    private SortParameterEnum sortedBy;
+
+    private List<ChargeSessionDto> unsorted;
+
+    private Comparator<ChargeSessionDto> comparator;
+
+    @Setup
+    public void setup() {
+        unsorted = ChargeSessionFixtures.chargeSessionDtos(size);
+        comparator = switch (sortedBy) {
+            case START_TIME_ASC -> Comparator.comparing(ChargeSessionDto::getStartTime);
+            case START_TIME_DESC -> Comparator.comparing(ChargeSessionDto::getStartTime, Comparator.reverseOrder());
+            case END_TIME_ASC -> new EndTimeComparator();
+            case END_TIME_DESC -> new EndTimeComparator().reversed();
+        };
+    }
+
+    // Sorts a fresh copy of the unordered list each time, as the service sorted the list it had just converted. The copy
+    // is included in the score; a per invocation setup would cost more than sorting 10 sessions.
+    @Benchmark
+    public List<ChargeSessionDto> sort() {
+        List<ChargeSessionDto> chargeSessionDtos = new ArrayList<>(unsorted);
+        chargeSessionDtos.sort(comparator);
+        return chargeSessionDtos;
+    }
+}
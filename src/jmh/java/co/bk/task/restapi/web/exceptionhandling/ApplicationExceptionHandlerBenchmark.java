@@ -0,0 +1,48 @@
+package co.bk.task.restapi.web.exceptionhandling;
+
+import co.bk.task.restapi.config.ApplicationConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.zalando.problem.Problem;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Error path of a request for an unknown vehicle: the ApplicationException thrown by the service, its translation to a
+ * problem by ApplicationExceptionHandler and the JSON body written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ApplicationExceptionHandlerBenchmark {
+
+    private ApplicationExceptionHandler handler;
+
+    private ObjectWriter writer;
+
+    @Setup
+    public void setup() {
+        handler = new ApplicationExceptionHandler(new SimpleMeterRegistry());
+        writer = new ApplicationConfig().defaultObjectMapper().writerFor(Problem.class);
+    }
+
+    @Benchmark
+    public byte[] notFound() throws JsonProcessingException {
+        ApplicationException ex = new ApplicationException(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_VEHICLE, new String[] { "123456" });
+        return writer.writeValueAsBytes(handler.handleRuntimeException(ex).getBody());
+    }
+
+    @Benchmark
+    public byte[] invalidSortParameter() throws JsonProcessingException {
+        ApplicationException ex = new ApplicationException(ApplicationException.ErrorCode.INVALID_SORT_PARAMETER);
+        return writer.writeValueAsBytes(handler.handleRuntimeException(ex).getBody());
+    }
+}
@@ -1,16 +1,26 @@
 package co.bk.task.restapi.config;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.zalando.problem.jackson.ProblemModule;
 
-import java.text.SimpleDateFormat;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
 
 import static com.fasterxml.jackson.databind.DeserializationFeature.ACCEPT_FLOAT_AS_INT;
 import static com.fasterxml.jackson.databind.SerializationFeature.FAIL_ON_EMPTY_BEANS;
@@ -19,16 +29,59 @@ import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS
 @Configuration
 public class ApplicationConfig {
 
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    // RFC 8742 sequence of CBOR items, the binary counterpart of application/x-ndjson
+    public static final MediaType APPLICATION_CBOR_SEQ = new MediaType("application", "cbor-seq");
+
+    public static final String APPLICATION_CBOR_SEQ_VALUE = "application/cbor-seq";
+
     @Primary
     @Bean
     public ObjectMapper defaultObjectMapper() {
+        return configure(new Jackson2ObjectMapperBuilder().json()).build();
+    }
+
+    /**
+     * Binary encodings for machine clients (Accept: application/cbor or application/x-jackson-smile): the configuration of
+     * the JSON mapper over a CBOR or Smile factory, so payloads carry the same properties, nulls and numbers. Smile
+     * writes each repeated property name once per payload.
+     */
+    @Bean
+    public ObjectMapper cborObjectMapper() {
+        return configure(Jackson2ObjectMapperBuilder.cbor()).build();
+    }
+
+    @Bean
+    public ObjectMapper smileObjectMapper() {
+        return configure(Jackson2ObjectMapperBuilder.smile()).build();
+    }
+
+    // Replace the converters Spring MVC would otherwise create with a default configured mapper
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+        return new MappingJackson2CborHttpMessageConverter(cborObjectMapper());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter() {
+        return new MappingJackson2SmileHttpMessageConverter(smileObjectMapper());
+    }
+
+    private static Jackson2ObjectMapperBuilder configure(Jackson2ObjectMapperBuilder builder) {
 
         /*
          * Custom object mapper:
          *  - prevents stacktrace leaking out in REST responses. See https://github.com/zalando/problem#stack-traces-and-causal-chains
          *  - configures date format to be UTC ISO8601 compliant e.g  2023-09-15T21:44:59.228Z
+         *
+         * Dates are written with an immutable java.time formatter rather than a SimpleDateFormat, which Jackson clones
+         * and synchronizes on for every value. ChargeSessionDto, the bulk of the list payloads, has its own serializer
+         * (see ChargeSessionDtoSerializer).
          */
-        ObjectMapper objectMapper = new Jackson2ObjectMapperBuilder().json()
+        return builder
                 .modulesToInstall(
                         new ProblemModule().withStackTraces(false))
                 .featuresToDisable(
@@ -40,11 +93,22 @@ public class ApplicationConfig {
                         DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT,
                         DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS,
                         JsonParser.Feature.IGNORE_UNDEFINED)
-                .dateFormat(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'"))
-                .serializationInclusion(JsonInclude.Include.ALWAYS) // NON_NULL would stop properties with null values being returned in REST payload
-                .build();
+                .serializerByType(Date.class, new UtcDateSerializer())
+                .serializationInclusion(JsonInclude.Include.ALWAYS); // NON_NULL would stop properties with null values being returned in REST payload
+    }
+
+    static class UtcDateSerializer extends StdSerializer<Date> {
+
+        private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+        UtcDateSerializer() {
+            super(Date.class);
+        }
 
-        return objectMapper;
+        @Override
+        public void serialize(Date date, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeString(FORMATTER.format(Instant.ofEpochMilli(date.getTime())));
+        }
     }
 
 }
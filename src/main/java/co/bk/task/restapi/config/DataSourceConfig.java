@@ -2,16 +2,21 @@ package co.bk.task.restapi.config;
 
 import java.util.Properties;
 
+import javax.cache.CacheManager;
 import javax.sql.DataSource;
 
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
-import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
-import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypesScanner;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 
 @Configuration
@@ -23,26 +28,68 @@ public class DataSourceConfig {
     @Value("${hibernate.hbm2ddl.auto}")
     private String HIBERNATE_HBM2DDL_AUTO;
 
+    @Value("${hibernate.hbm2ddl.import_files:}")
+    private String HIBERNATE_HBM2DDL_IMPORT_FILES;
+
     @Value("${spring.jpa.database-platform}")
     private String HIBERNATE_DIALECT;
 
+    @Value("${hibernate.jdbc.batch_size}")
+    private String HIBERNATE_JDBC_BATCH_SIZE;
+
+    @Value("${hibernate.order_inserts}")
+    private String HIBERNATE_ORDER_INSERTS;
+
+    @Value("${hibernate.order_updates}")
+    private String HIBERNATE_ORDER_UPDATES;
+
+    @Value("${hibernate.generate_statistics}")
+    private String HIBERNATE_GENERATE_STATISTICS;
+
+    /**
+     * Connection pool built from spring.datasource.* (url, credentials) and tuned with spring.datasource.hikari.* (pool
+     * size, timeouts, leak detection, validation). Pool metrics (hikaricp.connections.*) are registered by Spring Boot.
+     */
     @Bean
     @Profile("!itest")
-    public DataSource dataSource() {
-        return new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
                 .build();
     }
 
+    /**
+     * Entity classes of entitymanager.packagesToScan. As a bean, Spring AOT processing (gradle -PfastStartup) records the
+     * scanned classes at build time, so an AOT start up does not scan the classpath for them.
+     */
+    @Bean
+    public PersistenceManagedTypes persistenceManagedTypes(ResourceLoader resourceLoader) {
+        return new PersistenceManagedTypesScanner(resourceLoader).scan(ENTITYMANAGER_PACKAGES_TO_SCAN);
+    }
+
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource, PersistenceManagedTypes persistenceManagedTypes,
+                                                                       CacheManager hibernateCacheManager) {
         LocalContainerEntityManagerFactoryBean emf = new LocalContainerEntityManagerFactoryBean();
         emf.setDataSource(dataSource);
-        emf.setPackagesToScan(ENTITYMANAGER_PACKAGES_TO_SCAN);
+        emf.setManagedTypes(persistenceManagedTypes);
         emf.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
         emf.setJpaProperties(getHibernateProperties());
+        emf.getJpaPropertyMap().put("hibernate.javax.cache.cache_manager", hibernateCacheManager);
         return emf;
     }
 
+    /**
+     * Skips the Liquibase run when the schema checksum is unchanged, see SchemaChecksumPostProcessor. Static, as a bean
+     * post processor is created before the other beans of this class.
+     */
+    @Bean
+    public static SchemaChecksumPostProcessor schemaChecksumPostProcessor(
+            @Value("${application.liquibase.skipWhenUnchanged}") boolean skipWhenUnchanged) {
+        return new SchemaChecksumPostProcessor(skipWhenUnchanged);
+    }
+
     @Bean
     public JpaTransactionManager transactionManager(LocalContainerEntityManagerFactoryBean entityManagerFactory) {
         return new JpaTransactionManager(entityManagerFactory.getObject());
@@ -51,7 +98,28 @@ public class DataSourceConfig {
     private Properties getHibernateProperties() {
         Properties properties = new Properties();
         properties.setProperty("hibernate.hbm2ddl.auto", HIBERNATE_HBM2DDL_AUTO);
+        // Scripts run after Hibernate creates the schema (create, create-drop), e.g. constraints an entity cannot express
+        if (!HIBERNATE_HBM2DDL_IMPORT_FILES.isEmpty()) {
+            properties.setProperty("hibernate.hbm2ddl.import_files", HIBERNATE_HBM2DDL_IMPORT_FILES);
+        }
         properties.setProperty("hibernate.dialect", HIBERNATE_DIALECT);
+
+        // JDBC batching of inserts and updates. Ordering groups statements by entity so batches are not broken up.
+        properties.setProperty("hibernate.jdbc.batch_size", HIBERNATE_JDBC_BATCH_SIZE);
+        properties.setProperty("hibernate.order_inserts", HIBERNATE_ORDER_INSERTS);
+        properties.setProperty("hibernate.order_updates", HIBERNATE_ORDER_UPDATES);
+
+        // Entity ids come from one sequence per entity (004-create-entity-sequences.sql) in blocks of allocationSize (50):
+        // a node calls the sequence once per 50 inserts, so inserts need no sequence round-trip each and can be batched.
+        // The sequence value is the low end of the block a node allocates (pooled-lo) rather than the high end (pooled).
+        properties.setProperty("hibernate.id.optimizer.pooled.preferred", "pooled-lo");
+
+        // Second-level cache for entities annotated @Cacheable (regions in HibernateCacheConfig). No query cache.
+        properties.setProperty("hibernate.cache.use_second_level_cache", "true");
+        properties.setProperty("hibernate.cache.use_query_cache", "false");
+        properties.setProperty("hibernate.cache.region.factory_class", "jcache");
+        properties.setProperty("hibernate.javax.cache.missing_cache_strategy", "fail");
+        properties.setProperty("hibernate.generate_statistics", HIBERNATE_GENERATE_STATISTICS);
         return properties;
     }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package co.bk.task.restapi.config;
+
+import co.bk.task.restapi.model.ChargePoint;
+import co.bk.task.restapi.model.Vehicle;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level (L2) cache regions, held in a local Caffeine JCache provider.
+ *
+ * Vehicle and ChargePoint reference data is looked up by id on every request but rarely written, so its entity state is
+ * cached across transactions and lookups of a cached id do not reach the database. Hibernate updates a region on every
+ * write made through the session factory and builds a new instance from the cached state for each persistence context,
+ * so callers never share a mutable entity. Each region is bounded in size and entries expire after a TTL, both set in
+ * application.properties; charge points change least, so their region keeps entries longest.
+ *
+ * The same regions resolve the Vehicle and ChargePoint associations of every ChargeSession that is loaded, so a session
+ * query does not load its reference data row by row. Regions are registered here and Hibernate fails on start up if an
+ * entity names a region that is not (hibernate.javax.cache.missing_cache_strategy).
+ *
+ * Hit, miss and put counts per region are published by Spring Boot (hibernate-micrometer) as hibernate.second.level.cache.*
+ * on /actuator/metrics (requires hibernate.generate_statistics).
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    @Value("${application.l2cache.vehicle.maximumSize}")
+    private long VEHICLE_MAXIMUM_SIZE;
+
+    @Value("${application.l2cache.vehicle.expireAfterWrite}")
+    private Duration VEHICLE_EXPIRE_AFTER_WRITE;
+
+    @Value("${application.l2cache.chargePoint.maximumSize}")
+    private long CHARGE_POINT_MAXIMUM_SIZE;
+
+    @Value("${application.l2cache.chargePoint.expireAfterWrite}")
+    private Duration CHARGE_POINT_EXPIRE_AFTER_WRITE;
+
+    @Bean
+    public CacheManager hibernateCacheManager() {
+        CaffeineCachingProvider cachingProvider = (CaffeineCachingProvider) Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+
+        // A cache manager of its own per application context, as the provider shares managers by URI within the JVM
+        CacheManager cacheManager = cachingProvider.getCacheManager(
+                URI.create("restapi-l2-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        cacheManager.createCache(Vehicle.CACHE_REGION, regionConfiguration(VEHICLE_MAXIMUM_SIZE, VEHICLE_EXPIRE_AFTER_WRITE));
+        cacheManager.createCache(ChargePoint.CACHE_REGION, regionConfiguration(CHARGE_POINT_MAXIMUM_SIZE, CHARGE_POINT_EXPIRE_AFTER_WRITE));
+        return cacheManager;
+    }
+
+    private static CaffeineConfiguration<Object, Object> regionConfiguration(long maximumSize, Duration expireAfterWrite) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,121 @@
+package co.bk.task.restapi.config;
+
+import liquibase.integration.spring.SpringLiquibase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Skips the Liquibase run at start up when the database schema is already at the packaged changelog.
+ *
+ * The checksum is a SHA-256 of the files in the changelog's directory (the master changelog and the SQL it includes).
+ * It is stored in SCHEMA_CHECKSUM after every successful Liquibase run. When application.liquibase.skipWhenUnchanged is
+ * set and the stored checksum matches, Liquibase is not run at all: no changelog parsing, lock or DATABASECHANGELOG
+ * queries. Any change to a changelog file changes the checksum, so a new release still applies its changesets.
+ * A database without the table (e.g. before changeset 9) is treated as unknown and Liquibase runs.
+ */
+@Slf4j
+public class SchemaChecksumPostProcessor implements BeanPostProcessor {
+
+    private static final String SELECT_CHECKSUM = "SELECT checksum FROM SCHEMA_CHECKSUM WHERE change_log = ?";
+
+    private static final String UPDATE_CHECKSUM = "UPDATE SCHEMA_CHECKSUM SET checksum = ?, date_updated = ? WHERE change_log = ?";
+
+    private static final String INSERT_CHECKSUM = "INSERT INTO SCHEMA_CHECKSUM (change_log, checksum, date_updated) VALUES (?, ?, ?)";
+
+    private final boolean skipWhenUnchanged;
+
+    // Checksum of each SpringLiquibase bean that runs, stored once it has initialised
+    private final Map<String, String> pendingChecksums = new HashMap<>();
+
+    public SchemaChecksumPostProcessor(boolean skipWhenUnchanged) {
+        this.skipWhenUnchanged = skipWhenUnchanged;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof SpringLiquibase liquibase) {
+            String checksum = checksum(liquibase);
+            if (skipWhenUnchanged && checksum.equals(storedChecksum(liquibase))) {
+                log.info("Schema checksum of {} unchanged ({}), skipping Liquibase", liquibase.getChangeLog(), checksum);
+                liquibase.setShouldRun(false);
+            } else {
+                pendingChecksums.put(beanName, checksum);
+            }
+        }
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof SpringLiquibase liquibase && pendingChecksums.containsKey(beanName)) {
+            storeChecksum(liquibase, pendingChecksums.remove(beanName));
+        }
+        return bean;
+    }
+
+    /**
+     * SHA-256 (hex) of the names and contents of the files in the changelog's directory, in name order.
+     */
+    static String checksum(SpringLiquibase liquibase) {
+        String changeLog = liquibase.getChangeLog();
+        String directory = changeLog.substring(0, changeLog.lastIndexOf('/') + 1);
+        try {
+            Resource[] resources = new PathMatchingResourcePatternResolver(liquibase.getResourceLoader()).getResources(directory + "*");
+            Arrays.sort(resources, Comparator.comparing(Resource::getFilename));
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Resource resource : resources) {
+                digest.update(resource.getFilename().getBytes(StandardCharsets.UTF_8));
+                try (InputStream inputStream = resource.getInputStream()) {
+                    digest.update(inputStream.readAllBytes());
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read changelog " + changeLog, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String storedChecksum(SpringLiquibase liquibase) {
+        try {
+            List<String> checksums = new JdbcTemplate(liquibase.getDataSource())
+                    .queryForList(SELECT_CHECKSUM, String.class, liquibase.getChangeLog());
+            return checksums.isEmpty() ? null : checksums.get(0);
+        } catch (DataAccessException e) {
+            log.info("No schema checksum of {} ({}), running Liquibase", liquibase.getChangeLog(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static void storeChecksum(SpringLiquibase liquibase, String checksum) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(liquibase.getDataSource());
+        long now = System.currentTimeMillis();
+        try {
+            if (jdbcTemplate.update(UPDATE_CHECKSUM, checksum, now, liquibase.getChangeLog()) == 0) {
+                jdbcTemplate.update(INSERT_CHECKSUM, liquibase.getChangeLog(), checksum, now);
+            }
+        } catch (DataAccessException e) {
+            // The schema has been applied, only a later start up loses the option to skip Liquibase
+            log.warn("Cannot store schema checksum of {}: {}", liquibase.getChangeLog(), e.getMessage());
+        }
+    }
+}
@@ -2,7 +2,9 @@ package co.bk.task.restapi.model;
 
 import com.google.common.collect.Lists;
 import jakarta.persistence.*;
-import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
 
 import java.util.List;
 
@@ -13,14 +15,21 @@ import java.util.List;
  */
 @Entity
 @Table(name = "charge_point")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ChargePoint.CACHE_REGION)
 public class ChargePoint {
 
+    // Second-level cache region, see HibernateCacheConfig
+    public static final String CACHE_REGION = "chargePoint";
+
     @Id
-    @SequenceGenerator(name = "mySeqGen", sequenceName = "hibernate_sequence",  allocationSize = 1)
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mySeqGen")
+    // Per-entity sequence, ids allocated in blocks (see DataSourceConfig)
+    @SequenceGenerator(name = "chargePointSeqGen", sequenceName = "charge_point_seq", allocationSize = 50)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "chargePointSeqGen")
     private Long id;
 
-    @OneToMany(cascade = { CascadeType.ALL }, fetch = FetchType.EAGER, mappedBy = "chargePoint")
+    // Lazy: loading a session must not pull in the full history of its charge point.
+    @OneToMany(cascade = { CascadeType.ALL }, fetch = FetchType.LAZY, mappedBy = "chargePoint")
     private List<ChargeSession> detailRecords = Lists.newArrayList();
 
     @Column(name = "manufacturer_model")
@@ -169,6 +178,7 @@ public class ChargePoint {
 
     @Override
     public String toString() {
-        return ToStringBuilder.reflectionToString(this);
+        // Exclude the lazy history so logging a charge point never initialises it
+        return ReflectionToStringBuilder.toStringExclude(this, "detailRecords");
     }
 }
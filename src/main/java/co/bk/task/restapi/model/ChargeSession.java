@@ -12,12 +12,18 @@ import java.util.UUID;
  * Stores the details of a charging session at a charging point for a given vehicle.
  */
 @Entity
-@Table(name = "charge_session")
+@Table(name = "charge_session", indexes = {
+        @Index(name = "charge_session_vehicle_start_time_idx", columnList = "vehicle_id, start_time, id"),
+        @Index(name = "charge_session_vehicle_end_time_idx", columnList = "vehicle_id, end_time, id"),
+        @Index(name = "charge_session_vehicle_version_idx", columnList = "vehicle_id, date_created, date_updated, version"),
+        @Index(name = "charge_session_charge_point_start_time_idx", columnList = "chargePoint_id, start_time, id")
+})
 public class ChargeSession {
 
     @Id
-    @SequenceGenerator(name = "mySeqGen", sequenceName = "hibernate_sequence",  allocationSize = 1)
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mySeqGen")
+    // Per-entity sequence, ids allocated in blocks (see DataSourceConfig)
+    @SequenceGenerator(name = "chargeSessionSeqGen", sequenceName = "charge_session_seq", allocationSize = 50)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "chargeSessionSeqGen")
     private Long id;
 
     @ManyToOne(fetch = FetchType.EAGER)
@@ -46,6 +52,11 @@ public class ChargeSession {
     @Column(name = "date_updated")
     private Long dateUpdated;
 
+    // Optimistic lock: a write based on a stale read of the session fails instead of overwriting (see OptimisticLockRetry)
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     public ChargeSession() {}
 
     public ChargeSession(Vehicle vehicle, ChargePoint chargePoint) {
@@ -142,6 +153,14 @@ public class ChargeSession {
         this.dateUpdated = dateUpdated;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
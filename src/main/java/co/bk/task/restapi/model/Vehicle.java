@@ -2,6 +2,8 @@ package co.bk.task.restapi.model;
 
 import com.google.common.collect.Lists;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
@@ -13,14 +15,21 @@ import java.util.List;
  */
 @Entity
 @Table(name = "vehicle")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Vehicle.CACHE_REGION)
 public class Vehicle {
 
+    // Second-level cache region, see HibernateCacheConfig
+    public static final String CACHE_REGION = "vehicle";
+
     @Id
-    @SequenceGenerator(name = "mySeqGen", sequenceName = "hibernate_sequence",  allocationSize = 1)
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mySeqGen")
+    // Per-entity sequence, ids allocated in blocks (see DataSourceConfig)
+    @SequenceGenerator(name = "vehicleSeqGen", sequenceName = "vehicle_seq", allocationSize = 50)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "vehicleSeqGen")
     private Long id;
 
-    @OneToMany(cascade = { CascadeType.ALL }, fetch = FetchType.EAGER, mappedBy = "vehicle")
+    // Lazy: a vehicle's history can run to tens of thousands of sessions. Query it through ChargeSessionListRepository.
+    @OneToMany(cascade = { CascadeType.ALL }, fetch = FetchType.LAZY, mappedBy = "vehicle")
     private List<ChargeSession> chargeSessions = Lists.newArrayList();
 
     @Column(name = "license_plate")
@@ -0,0 +1,61 @@
+package co.bk.task.restapi.model;
+
+import jakarta.persistence.*;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * Running totals of the charge sessions of a vehicle that ended within a UTC day or month.
+ *
+ * Rows are incremented in the transaction that ends a session (see VehicleChargeSummaryService) so a summary over a date
+ * range reads one row per bucket instead of every session. Cost and energy are kept in the fixed-point units of
+ * TariffEngine so sums are exact.
+ */
+@Entity
+@Table(name = "vehicle_charge_rollup")
+public class VehicleChargeRollup {
+
+    @EmbeddedId
+    private VehicleChargeRollupId id;
+
+    @Column(name = "session_count")
+    private Long sessionCount;
+
+    // 10^-8 EUR, see TariffEngine.MICRO_CENTS_PER_EURO
+    @Column(name = "total_cost_micro_cents")
+    private Long totalCostMicroCents;
+
+    // See TariffEngine.MICRO_JOULES_PER_KWH
+    @Column(name = "energy_micro_joules")
+    private Long energyMicroJoules;
+
+    // UTC time
+    @Column(name = "date_updated")
+    private Long dateUpdated;
+
+    public VehicleChargeRollup() {}
+
+    public VehicleChargeRollupId getId() {
+        return id;
+    }
+
+    public Long getSessionCount() {
+        return sessionCount;
+    }
+
+    public Long getTotalCostMicroCents() {
+        return totalCostMicroCents;
+    }
+
+    public Long getEnergyMicroJoules() {
+        return energyMicroJoules;
+    }
+
+    public Long getDateUpdated() {
+        return dateUpdated;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+}
@@ -0,0 +1,81 @@
+package co.bk.task.restapi.model;
+
+import co.bk.task.restapi.util.SummaryGranularityEnum;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Primary key of VehicleChargeRollup. Ordered by vehicle, granularity and bucket so rollup rows are always written (and
+ * locked) in the same order.
+ */
+@Embeddable
+public class VehicleChargeRollupId implements Serializable, Comparable<VehicleChargeRollupId> {
+
+    private static final Comparator<VehicleChargeRollupId> ORDER = Comparator
+            .comparing(VehicleChargeRollupId::getVehicleId)
+            .thenComparing(VehicleChargeRollupId::getGranularity)
+            .thenComparing(VehicleChargeRollupId::getBucketStart);
+
+    @Column(name = "vehicle_id")
+    private Long vehicleId;
+
+    @Column(name = "granularity")
+    @Enumerated(EnumType.STRING)
+    private SummaryGranularityEnum granularity;
+
+    // UTC time, first instant of the day or month
+    @Column(name = "bucket_start")
+    private Long bucketStart;
+
+    public VehicleChargeRollupId() {}
+
+    public VehicleChargeRollupId(Long vehicleId, SummaryGranularityEnum granularity, Long bucketStart) {
+        this.vehicleId = vehicleId;
+        this.granularity = granularity;
+        this.bucketStart = bucketStart;
+    }
+
+    public Long getVehicleId() {
+        return vehicleId;
+    }
+
+    public SummaryGranularityEnum getGranularity() {
+        return granularity;
+    }
+
+    public Long getBucketStart() {
+        return bucketStart;
+    }
+
+    @Override
+    public int compareTo(VehicleChargeRollupId other) {
+        return ORDER.compare(this, other);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        VehicleChargeRollupId other = (VehicleChargeRollupId) o;
+        return Objects.equals(vehicleId, other.vehicleId)
+                && granularity == other.granularity
+                && Objects.equals(bucketStart, other.bucketStart);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(vehicleId, granularity, bucketStart);
+    }
+
+    @Override
+    public String toString() {
+        return vehicleId + ":" + granularity + ":" + bucketStart;
+    }
+}
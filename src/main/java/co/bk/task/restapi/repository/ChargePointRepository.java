@@ -1,9 +1,13 @@
 package co.bk.task.restapi.repository;
 
 import co.bk.task.restapi.model.ChargePoint;
-import co.bk.task.restapi.model.Vehicle;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+/**
+ * Lookups by id (findById) are served by the Hibernate second-level cache region ChargePoint.CACHE_REGION (see
+ * HibernateCacheConfig), which Hibernate keeps up to date on every write and which gives each persistence context its own
+ * instance.
+ */
 public interface ChargePointRepository extends JpaRepository<ChargePoint, Long> {
 
 }
@@ -1,12 +1,77 @@
 package co.bk.task.restapi.repository;
 
 import co.bk.task.restapi.model.ChargeSession;
+import co.bk.task.restapi.service.dto.ChargeSessionDto;
+import co.bk.task.restapi.service.dto.ChargeSessionsVersionDto;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.ListCrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ChargeSessionListRepository extends ListCrudRepository<ChargeSession, Long> {
-    List<ChargeSession> findChargeSessionsByVehicleId(Long vehicleId);
-}
\ No newline at end of file
+public interface ChargeSessionListRepository extends ListCrudRepository<ChargeSession, Long>, ChargeSessionListRepositoryCustom {
+
+    /**
+     * Constructor expression selecting the columns of ChargeSessionDto from ChargeSession cs (same values as
+     * ChargeSessionConverter). Read paths use it instead of loading entities and their vehicle and charge point.
+     */
+    String DTO_PROJECTION = "new co.bk.task.restapi.service.dto.ChargeSessionDto(cs.id, cs.sessionId, cs.startTime,"
+            + " cs.endTime, cs.totalCost, cs.vehicle.id, cs.chargePoint.id)";
+
+    /**
+     * A session as a DTO projection: one row by primary key, no joins and nothing added to the persistence context.
+     */
+    @Query("select " + DTO_PROJECTION + " from ChargeSession cs where cs.id = :id")
+    Optional<ChargeSessionDto> findDtoById(@Param("id") Long id);
+
+    /**
+     * The session a vehicle is currently charging in (no end time), if any. Served by the (vehicle_id, end_time, id) index
+     * so the lookup does not touch the vehicle's ended sessions.
+     */
+    Optional<ChargeSession> findFirstByVehicleIdAndEndTimeIsNull(Long vehicleId);
+
+    /**
+     * The most recently created sessions as DTO projections, e.g. the sample read by the warm-up (see WarmUpRunner).
+     */
+    @Query("select " + DTO_PROJECTION + " from ChargeSession cs order by cs.id desc")
+    List<ChargeSessionDto> findLatestDtos(Limit limit);
+
+    /**
+     * Sessions by id with their vehicle and charge point in one query (batch ends). findAllById would load the eager
+     * associations with one select per id the second-level cache misses.
+     */
+    @Query("select cs from ChargeSession cs join fetch cs.vehicle join fetch cs.chargePoint where cs.id in :ids")
+    List<ChargeSession> findAllWithAssociationsById(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Open sessions of several vehicles in one query (batch requests).
+     */
+    List<ChargeSession> findByVehicleIdInAndEndTimeIsNull(Collection<Long> vehicleIds);
+
+    /**
+     * Flush pending inserts and updates, e.g. so a session ended in this transaction is written before a new open session
+     * of its vehicle is inserted (Hibernate would otherwise flush the insert first and break the one open session per
+     * vehicle index). Implemented by SimpleJpaRepository.
+     */
+    void flush();
+
+    /**
+     * Version stamp of a session: its optimistic lock version, raised by one on every update. Reads one row by primary key
+     * and no associations.
+     */
+    @Query("select cs.version from ChargeSession cs where cs.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Version stamp of the history of a vehicle as one aggregate row, computed from the
+     * (vehicle_id, date_created, date_updated, version) index without loading any session.
+     */
+    @Query("select new co.bk.task.restapi.service.dto.ChargeSessionsVersionDto(count(cs), sum(cs.version), max(cs.dateCreated), max(cs.dateUpdated))"
+            + " from ChargeSession cs where cs.vehicle.id = :vehicleId")
+    ChargeSessionsVersionDto findVersionByVehicleId(@Param("vehicleId") Long vehicleId);
+}
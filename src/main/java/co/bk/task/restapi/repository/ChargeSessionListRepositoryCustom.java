@@ -0,0 +1,30 @@
+package co.bk.task.restapi.repository;
+
+import co.bk.task.restapi.service.dto.ChargeSessionDto;
+import co.bk.task.restapi.util.ChargeSessionFilter;
+import co.bk.task.restapi.util.KeysetCursor;
+import co.bk.task.restapi.util.SortParameterEnum;
+
+import java.util.List;
+
+/**
+ * Queries that Spring Data cannot derive from method names.
+ */
+public interface ChargeSessionListRepositoryCustom {
+
+    /**
+     * Keyset (cursor) pagination over the charge sessions of a vehicle. Sorting and limiting happen in the database so the
+     * cost of a page does not depend on the size of the vehicle's history.
+     *
+     * Sessions are read as a projection onto ChargeSessionDto: only the columns of the DTO are selected (vehicle and
+     * charge point ids are foreign key columns, so neither table is joined) and no entity enters the persistence context.
+     *
+     * @param vehicleId unique id assigned to the vehicle
+     * @param filter further conditions on the sessions, ChargeSessionFilter.NONE for all sessions of the vehicle
+     * @param sortedBy sort order. endTime sorts place open sessions first (ascending) or last (descending).
+     * @param after position of the last session of the previous page, or null for the first page
+     * @param limit maximum number of sessions to return
+     * @return at most limit charge sessions
+     */
+    List<ChargeSessionDto> findDtoPageForVehicle(Long vehicleId, ChargeSessionFilter filter, SortParameterEnum sortedBy, KeysetCursor after, int limit);
+}
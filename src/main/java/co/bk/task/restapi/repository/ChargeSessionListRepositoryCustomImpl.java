@@ -0,0 +1,119 @@
+package co.bk.task.restapi.repository;
+
+import co.bk.task.restapi.service.dto.ChargeSessionDto;
+import co.bk.task.restapi.util.ChargeSessionFilter;
+import co.bk.task.restapi.util.KeysetCursor;
+import co.bk.task.restapi.util.SortParameterEnum;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.List;
+
+/**
+ * Every sort order maps onto an index on charge_session (see 003-create-charge-session-indexes.sql) so a page is an index
+ * range scan followed by LIMIT. The id column is the tie-breaker within equal sort values which keeps the ordering total
+ * and the cursor stable.
+ *
+ * Null end times (open sessions) sort first for endTime and last for -endTime. A cursor positioned on an open session
+ * therefore uses a different predicate to a cursor positioned on an ended session.
+ *
+ * Filters add predicates to the same query. The start time range and status narrow the range scan of the sort index,
+ * a charge point filter may instead be served by the (charge_point_id, start_time, id) index, and the cost range is checked
+ * on the rows the scan reads. See 007-create-charge-session-filter-indexes.sql.
+ */
+public class ChargeSessionListRepositoryCustomImpl implements ChargeSessionListRepositoryCustom {
+
+    private static final String SELECT = "select " + ChargeSessionListRepository.DTO_PROJECTION
+            + " from ChargeSession cs where cs.vehicle.id = :vehicleId ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ChargeSessionDto> findDtoPageForVehicle(Long vehicleId, ChargeSessionFilter filter, SortParameterEnum sortedBy, KeysetCursor after, int limit) {
+
+        StringBuilder jpql = new StringBuilder(SELECT);
+
+        if (filter.getStartFrom() != null) {
+            jpql.append("and cs.startTime >= :startFrom ");
+        }
+        if (filter.getStartTo() != null) {
+            jpql.append("and cs.startTime < :startTo ");
+        }
+        if (filter.getStatus() == ChargeSessionFilter.Status.OPEN) {
+            jpql.append("and cs.endTime is null ");
+        } else if (filter.getStatus() == ChargeSessionFilter.Status.CLOSED) {
+            jpql.append("and cs.endTime is not null ");
+        }
+        if (filter.getChargePointId() != null) {
+            jpql.append("and cs.chargePoint.id = :chargePointId ");
+        }
+        if (filter.getMinCost() != null) {
+            jpql.append("and cs.totalCost >= :minCost ");
+        }
+        if (filter.getMaxCost() != null) {
+            jpql.append("and cs.totalCost <= :maxCost ");
+        }
+
+        switch (sortedBy) {
+            case START_TIME_ASC:
+                if (after != null) {
+                    jpql.append("and (cs.startTime > :sortKey or (cs.startTime = :sortKey and cs.id > :id)) ");
+                }
+                jpql.append("order by cs.startTime asc, cs.id asc");
+                break;
+            case START_TIME_DESC:
+                if (after != null) {
+                    jpql.append("and (cs.startTime < :sortKey or (cs.startTime = :sortKey and cs.id < :id)) ");
+                }
+                jpql.append("order by cs.startTime desc, cs.id desc");
+                break;
+            case END_TIME_ASC:
+                if (after != null && after.getSortKey() == null) {
+                    // Still within the open sessions
+                    jpql.append("and ((cs.endTime is null and cs.id > :id) or cs.endTime is not null) ");
+                } else if (after != null) {
+                    jpql.append("and (cs.endTime > :sortKey or (cs.endTime = :sortKey and cs.id > :id)) ");
+                }
+                jpql.append("order by cs.endTime asc nulls first, cs.id asc");
+                break;
+            case END_TIME_DESC:
+                if (after != null && after.getSortKey() == null) {
+                    // Only open sessions remain
+                    jpql.append("and cs.endTime is null and cs.id < :id ");
+                } else if (after != null) {
+                    jpql.append("and (cs.endTime < :sortKey or (cs.endTime = :sortKey and cs.id < :id) or cs.endTime is null) ");
+                }
+                jpql.append("order by cs.endTime desc nulls last, cs.id desc");
+                break;
+        }
+
+        TypedQuery<ChargeSessionDto> query = entityManager.createQuery(jpql.toString(), ChargeSessionDto.class)
+                .setParameter("vehicleId", vehicleId)
+                .setMaxResults(limit);
+
+        if (filter.getStartFrom() != null) {
+            query.setParameter("startFrom", filter.getStartFrom());
+        }
+        if (filter.getStartTo() != null) {
+            query.setParameter("startTo", filter.getStartTo());
+        }
+        if (filter.getChargePointId() != null) {
+            query.setParameter("chargePointId", filter.getChargePointId());
+        }
+        if (filter.getMinCost() != null) {
+            query.setParameter("minCost", filter.getMinCost());
+        }
+        if (filter.getMaxCost() != null) {
+            query.setParameter("maxCost", filter.getMaxCost());
+        }
+        if (after != null) {
+            query.setParameter("id", after.getId());
+            if (after.getSortKey() != null) {
+                query.setParameter("sortKey", after.getSortKey());
+            }
+        }
+        return query.getResultList();
+    }
+}
@@ -0,0 +1,62 @@
+package co.bk.task.restapi.repository;
+
+import co.bk.task.restapi.model.VehicleChargeRollup;
+import co.bk.task.restapi.model.VehicleChargeRollupId;
+import co.bk.task.restapi.util.SummaryGranularityEnum;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.ListCrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface VehicleChargeRollupRepository extends ListCrudRepository<VehicleChargeRollup, VehicleChargeRollupId> {
+
+    /**
+     * Buckets of a vehicle with bucketStart in [from, to), oldest first. A range scan of the primary key.
+     */
+    @Query("select r from VehicleChargeRollup r where r.id.vehicleId = :vehicleId and r.id.granularity = :granularity"
+            + " and r.id.bucketStart >= :from and r.id.bucketStart < :to order by r.id.bucketStart asc")
+    List<VehicleChargeRollup> findBuckets(@Param("vehicleId") Long vehicleId,
+                                          @Param("granularity") SummaryGranularityEnum granularity,
+                                          @Param("from") long from,
+                                          @Param("to") long to);
+
+    /**
+     * Adds to the totals of an existing bucket in place (no read of the row first).
+     *
+     * @return 1 if the bucket exists, otherwise 0 and the bucket has to be inserted
+     */
+    @Modifying
+    @Query("update VehicleChargeRollup r set r.sessionCount = r.sessionCount + :sessionCount,"
+            + " r.totalCostMicroCents = r.totalCostMicroCents + :totalCostMicroCents,"
+            + " r.energyMicroJoules = r.energyMicroJoules + :energyMicroJoules,"
+            + " r.dateUpdated = :dateUpdated where r.id = :id")
+    int increment(@Param("id") VehicleChargeRollupId id,
+                  @Param("sessionCount") long sessionCount,
+                  @Param("totalCostMicroCents") long totalCostMicroCents,
+                  @Param("energyMicroJoules") long energyMicroJoules,
+                  @Param("dateUpdated") long dateUpdated);
+
+    /**
+     * Inserts a bucket without the select Spring Data would issue to decide between persist and merge. The table is
+     * declared as the query space: a native update without one evicts every second-level cache region.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vehicle_charge_rollup"))
+    @Query(nativeQuery = true, value = "insert into vehicle_charge_rollup (vehicle_id, granularity, bucket_start,"
+            + " session_count, total_cost_micro_cents, energy_micro_joules, date_updated)"
+            + " values (:vehicleId, :granularity, :bucketStart, :sessionCount, :totalCostMicroCents, :energyMicroJoules, :dateUpdated)")
+    void insert(@Param("vehicleId") Long vehicleId,
+                @Param("granularity") String granularity,
+                @Param("bucketStart") long bucketStart,
+                @Param("sessionCount") long sessionCount,
+                @Param("totalCostMicroCents") long totalCostMicroCents,
+                @Param("energyMicroJoules") long energyMicroJoules,
+                @Param("dateUpdated") long dateUpdated);
+}
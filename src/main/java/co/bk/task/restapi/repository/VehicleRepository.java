@@ -1,8 +1,27 @@
 package co.bk.task.restapi.repository;
 
 import co.bk.task.restapi.model.Vehicle;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lookups by id (findById) are served by the Hibernate second-level cache region Vehicle.CACHE_REGION (see
+ * HibernateCacheConfig), which Hibernate keeps up to date on every write and which gives each persistence context its own
+ * instance.
+ */
 public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
 
+    /**
+     * Locks the rows of the given vehicles (select ... for update) until the end of the transaction, lowest id first.
+     * Serialises writes to a vehicle's charge rollups across transactions and nodes. Reads nothing into the cache.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select v.id from Vehicle v where v.id in :ids order by v.id")
+    List<Long> lockAllById(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,337 @@
+package co.bk.task.restapi.service;
+
+import co.bk.task.restapi.model.ChargeSession;
+import co.bk.task.restapi.service.converter.ChargeSessionConverter;
+import co.bk.task.restapi.service.dto.ChargeSessionDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Fan-out of charge session created and ended events to Server-Sent Event subscribers (GET /charge-sessions/stream).
+ *
+ * Subscribers are indexed by the vehicle or charge point they follow, so an event costs two map lookups, and is
+ * serialised once, whatever the number of subscribers. Events are published after the transaction that wrote them
+ * commits. Each subscriber has a bounded buffer drained by a sender task, so a slow client never blocks the request
+ * that published the event or the other subscribers. A full buffer either drops its oldest event or disconnects the
+ * subscriber (application.sse.overflow); the client then reconnects and re-reads the session list.
+ *
+ * A comment line is sent every heartbeat interval so connections closed by the client are noticed and released.
+ *
+ *  - charge.sessions.stream.subscribers: connected subscribers
+ *  - charge.sessions.stream.dropped: events dropped or subscribers disconnected because a buffer was full
+ */
+@Component
+@Slf4j
+public class ChargeSessionEventHub {
+
+    public static final String SUBSCRIBERS = "charge.sessions.stream.subscribers";
+
+    public static final String DROPPED = "charge.sessions.stream.dropped";
+
+    public enum EventType {
+        CREATED("created"),
+        ENDED("ended");
+
+        private final String eventName;
+
+        EventType(String eventName) {
+            this.eventName = eventName;
+        }
+
+        public String getEventName() {
+            return eventName;
+        }
+    }
+
+    public enum Overflow { DROP_OLDEST, DISCONNECT }
+
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+    private final Map<Long, Set<Subscriber>> subscribersByVehicleId = new ConcurrentHashMap<>();
+
+    private final Map<Long, Set<Subscriber>> subscribersByChargePointId = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final ChargeSessionConverter chargeSessionConverter;
+
+    private final ObjectMapper objectMapper;
+
+    private final Counter droppedCounter;
+
+    private final ExecutorService senders;
+
+    private final ScheduledExecutorService heartbeats;
+
+    private final int bufferSize;
+
+    private final Overflow overflow;
+
+    private final long timeoutMillis;
+
+    public ChargeSessionEventHub(ChargeSessionConverter chargeSessionConverter,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${application.sse.bufferSize}") int bufferSize,
+                                 @Value("${application.sse.overflow}") Overflow overflow,
+                                 @Value("${application.sse.timeout}") Duration timeout,
+                                 @Value("${application.sse.heartbeatInterval}") Duration heartbeatInterval) {
+        this.chargeSessionConverter = chargeSessionConverter;
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.overflow = overflow;
+        this.timeoutMillis = timeout.toMillis();
+
+        this.droppedCounter = Counter.builder(DROPPED)
+                .description("Events dropped, or subscribers disconnected, because a subscriber buffer was full")
+                .register(meterRegistry);
+        Gauge.builder(SUBSCRIBERS, subscriberCount, AtomicInteger::get)
+                .description("Connected charge session event stream subscribers")
+                .register(meterRegistry);
+
+        // Sends block on slow clients, so they run apart from the publishing requests; one task per subscriber with events,
+        // each on a virtual thread so thousands of stalled clients do not hold thousands of platform threads
+        this.senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("charge-session-events-", 0).factory());
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("charge-session-events-heartbeat").factory());
+        long heartbeatMillis = heartbeatInterval.toMillis();
+        heartbeats.scheduleAtFixedRate(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeats.shutdownNow();
+        forEachSubscriber(subscriber -> {
+            subscriber.unsubscribe.run();
+            try {
+                subscriber.emitter.complete();
+            } catch (IllegalStateException e) {
+                // Connection already closed by the client or the container
+                log.debug("Charge session event stream already closed", e);
+            }
+        });
+        senders.shutdownNow();
+    }
+
+    /**
+     * Subscribe to the events of the sessions of a vehicle, or of a charge point (exactly one of the ids).
+     */
+    public SseEmitter subscribe(Long vehicleId, Long chargePointId) {
+
+        Map<Long, Set<Subscriber>> index = vehicleId != null ? subscribersByVehicleId : subscribersByChargePointId;
+        Long key = vehicleId != null ? vehicleId : chargePointId;
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, bufferSize);
+        subscriber.unsubscribe = () -> {
+            if (subscriber.close()) {
+                index.computeIfPresent(key, (k, subscribers) -> {
+                    subscribers.remove(subscriber);
+                    return subscribers.isEmpty() ? null : subscribers;
+                });
+                subscriberCount.decrementAndGet();
+            }
+        };
+        emitter.onCompletion(subscriber.unsubscribe);
+        emitter.onTimeout(subscriber.unsubscribe);
+        emitter.onError(e -> subscriber.unsubscribe.run());
+
+        index.compute(key, (k, subscribers) -> {
+            Set<Subscriber> keySubscribers = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            keySubscribers.add(subscriber);
+            return keySubscribers;
+        });
+        subscriberCount.incrementAndGet();
+        return emitter;
+    }
+
+    /**
+     * Publish the current state of a session once the current transaction commits (at once outside a transaction).
+     * Costs nothing when nobody follows the session's vehicle or charge point.
+     */
+    public void publishAfterCommit(EventType eventType, ChargeSession chargeSession) {
+
+        Long vehicleId = chargeSession.getVehicle() != null ? chargeSession.getVehicle().getId() : null;
+        Long chargePointId = chargeSession.getChargePoint() != null ? chargeSession.getChargePoint().getId() : null;
+        if (subscribers(subscribersByVehicleId, vehicleId) == null && subscribers(subscribersByChargePointId, chargePointId) == null) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(eventType, chargeSessionConverter.convert(chargeSession));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(eventType, chargeSessionConverter.convert(chargeSession));
+            }
+        });
+    }
+
+    void publish(EventType eventType, ChargeSessionDto chargeSessionDto) {
+
+        Set<Subscriber> vehicleSubscribers = subscribers(subscribersByVehicleId, chargeSessionDto.getVehicleId());
+        Set<Subscriber> chargePointSubscribers = subscribers(subscribersByChargePointId, chargeSessionDto.getChargePointId());
+        if (vehicleSubscribers == null && chargePointSubscribers == null) {
+            return;
+        }
+
+        Set<DataWithMediaType> event;
+        try {
+            event = SseEmitter.event()
+                    .name(eventType.getEventName())
+                    .data(objectMapper.writeValueAsString(chargeSessionDto), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            log.error("Charge session event for session {} could not be serialised", chargeSessionDto.getId(), e);
+            return;
+        }
+
+        if (vehicleSubscribers != null) {
+            vehicleSubscribers.forEach(subscriber -> deliver(subscriber, event, false));
+        }
+        if (chargePointSubscribers != null) {
+            chargePointSubscribers.forEach(subscriber -> deliver(subscriber, event, false));
+        }
+    }
+
+    int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private static Set<Subscriber> subscribers(Map<Long, Set<Subscriber>> index, Long key) {
+        return key == null ? null : index.get(key);
+    }
+
+    private void heartbeat() {
+        forEachSubscriber(subscriber -> deliver(subscriber, HEARTBEAT, true));
+    }
+
+    private void forEachSubscriber(Consumer<Subscriber> action) {
+        subscribersByVehicleId.values().forEach(subscribers -> subscribers.forEach(action));
+        subscribersByChargePointId.values().forEach(subscribers -> subscribers.forEach(action));
+    }
+
+    /**
+     * Buffer an event for the subscriber and start a sender task unless one is running. A heartbeat is only needed by an
+     * idle subscriber.
+     */
+    private void deliver(Subscriber subscriber, Set<DataWithMediaType> event, boolean heartbeat) {
+
+        subscriber.lock.lock();
+        try {
+            if (subscriber.closed || (heartbeat && !subscriber.buffer.isEmpty())) {
+                return;
+            }
+            if (subscriber.buffer.size() == subscriber.capacity) {
+                droppedCounter.increment();
+                if (overflow == Overflow.DISCONNECT) {
+                    subscriber.unsubscribe.run();
+                    // complete() waits for a send in progress, which a stalled client may hold up
+                    senders.execute(subscriber.emitter::complete);
+                    return;
+                }
+                subscriber.buffer.pollFirst();
+            }
+            subscriber.buffer.addLast(event);
+            if (subscriber.sending) {
+                return;
+            }
+            subscriber.sending = true;
+        } finally {
+            subscriber.lock.unlock();
+        }
+
+        senders.execute(() -> send(subscriber));
+    }
+
+    private void send(Subscriber subscriber) {
+        while (true) {
+            Set<DataWithMediaType> event;
+            subscriber.lock.lock();
+            try {
+                event = subscriber.buffer.pollFirst();
+                if (event == null || subscriber.closed) {
+                    subscriber.sending = false;
+                    return;
+                }
+            } finally {
+                subscriber.lock.unlock();
+            }
+
+            try {
+                subscriber.emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                // Client gone; the container completes the emitter, this only stops further sends
+                log.debug("Charge session event stream closed", e);
+                subscriber.unsubscribe.run();
+            }
+        }
+    }
+
+    private static class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final int capacity;
+
+        private final ArrayDeque<Set<DataWithMediaType>> buffer;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private Runnable unsubscribe;
+
+        private boolean sending;
+
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.capacity = capacity;
+            this.buffer = new ArrayDeque<>(capacity);
+        }
+
+        /**
+         * @return true the first time the subscriber is closed
+         */
+        boolean close() {
+            lock.lock();
+            try {
+                if (closed) {
+                    return false;
+                }
+                closed = true;
+                buffer.clear();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package co.bk.task.restapi.service;
+
+import co.bk.task.restapi.config.ApplicationConfig;
+import co.bk.task.restapi.repository.ChargeSessionListRepository;
+import co.bk.task.restapi.repository.VehicleRepository;
+import co.bk.task.restapi.service.dto.ChargeSessionDto;
+import co.bk.task.restapi.util.ChargeSessionFilter;
+import co.bk.task.restapi.util.KeysetCursor;
+import co.bk.task.restapi.util.SortParameterEnum;
+import co.bk.task.restapi.web.exceptionhandling.ApplicationException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams the full charge session history of a vehicle as newline delimited JSON (one ChargeSessionDto per line), or as
+ * a sequence of CBOR items or Smile values (one ChargeSessionDto each) for machine clients.
+ *
+ * The history is read a page at a time with the keyset query of GET /charge-sessions (oldest first), each page in its
+ * own short read-only transaction, and written straight to the output stream. Memory use is bounded by the page size
+ * and no pooled connection is held while a page is written to a slow client. Sessions are read as DTO projections, so
+ * the export is not a snapshot: a session created or ended while it runs may or may not be included as such.
+ */
+@Service
+@Slf4j
+public class ChargeSessionExportService {
+
+    private static final int NEWLINE = '\n';
+
+    private final ChargeSessionListRepository chargeSessionListRepository;
+
+    private final VehicleRepository vehicleRepository;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final int pageSize;
+
+    // Writer of a single charge session per export media type
+    private final Map<MediaType, ObjectWriter> chargeSessionWriters;
+
+    public ChargeSessionExportService(ChargeSessionListRepository chargeSessionListRepository, VehicleRepository vehicleRepository,
+                                      PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                                      @Qualifier("cborObjectMapper") ObjectMapper cborObjectMapper,
+                                      @Qualifier("smileObjectMapper") ObjectMapper smileObjectMapper,
+                                      @Value("${application.export.pageSize}") int pageSize) {
+        this.chargeSessionListRepository = chargeSessionListRepository;
+        this.vehicleRepository = vehicleRepository;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.pageSize = pageSize;
+        this.chargeSessionWriters = Map.of(
+                MediaType.APPLICATION_NDJSON, chargeSessionWriter(objectMapper),
+                ApplicationConfig.APPLICATION_CBOR_SEQ, chargeSessionWriter(cborObjectMapper),
+                ApplicationConfig.APPLICATION_SMILE, chargeSessionWriter(smileObjectMapper));
+    }
+
+    private static ObjectWriter chargeSessionWriter(ObjectMapper objectMapper) {
+        // Let the generator buffer and flush in blocks rather than after every record
+        return objectMapper.writerFor(ChargeSessionDto.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Check the vehicle exists. Called before the response is committed so an unknown vehicle still results in a 404.
+     */
+    public void checkVehicleExists(Long vehicleId) {
+        // findById rather than existsById: lookups by id are served from the second-level cache
+        if (vehicleRepository.findById(vehicleId).isEmpty()) {
+            throw new ApplicationException(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_VEHICLE, new String[] { String.valueOf(vehicleId) });
+        }
+    }
+
+    /**
+     * Write every charge session of the vehicle to the output stream, oldest first.
+     *
+     * @param vehicleId unique id assigned to the vehicle
+     * @param mediaType application/x-ndjson, application/cbor-seq or application/x-jackson-smile
+     * @param outputStream destination e.g. the HTTP response body. Not closed by this method.
+     */
+    public void exportChargeSessionsForVehicle(Long vehicleId, MediaType mediaType, OutputStream outputStream) throws IOException {
+
+        ObjectWriter chargeSessionWriter = chargeSessionWriters.get(mediaType);
+        boolean newlineDelimited = MediaType.APPLICATION_NDJSON.equals(mediaType);
+
+        long count = 0;
+        try (JsonGenerator generator = chargeSessionWriter.getFactory().createGenerator(outputStream)) {
+
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (newlineDelimited) {
+                // Records are separated by the newline alone (Jackson separates root values with a space by default)
+                generator.setRootValueSeparator(null);
+            }
+
+            KeysetCursor after = null;
+            List<ChargeSessionDto> page;
+            do {
+                page = readPage(vehicleId, after);
+                for (ChargeSessionDto chargeSessionDto : page) {
+                    chargeSessionWriter.writeValue(generator, chargeSessionDto);
+                    if (newlineDelimited) {
+                        generator.writeRaw((char) NEWLINE);
+                    }
+                }
+                count += page.size();
+                if (!page.isEmpty()) {
+                    after = KeysetCursor.after(SortParameterEnum.START_TIME_ASC, page.get(page.size() - 1));
+                }
+            } while (page.size() == pageSize);
+        }
+        log.debug("Exported {} charge sessions for vehicle {}", count, vehicleId);
+    }
+
+    private List<ChargeSessionDto> readPage(Long vehicleId, KeysetCursor after) {
+        return readOnlyTransactionTemplate.execute(status -> chargeSessionListRepository.findDtoPageForVehicle(
+                vehicleId, ChargeSessionFilter.NONE, SortParameterEnum.START_TIME_ASC, after, pageSize));
+    }
+}
@@ -0,0 +1,57 @@
+package co.bk.task.restapi.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Charge session meters that Spring Boot does not record itself (endpoints and repository methods are timed as
+ * http.server.requests and spring.data.repository.invocations).
+ *
+ *  - charge.sessions.cost.calculation: time to end a session and calculate its cost, tagged cost=calculated|default
+ *  - charge.sessions.page.size: number of sessions returned per page of GET /charge-sessions
+ *
+ * Both publish percentile histograms for the Prometheus scrape endpoint.
+ */
+@Component
+public class ChargeSessionMetrics {
+
+    public static final String COST_CALCULATION = "charge.sessions.cost.calculation";
+
+    public static final String PAGE_SIZE = "charge.sessions.page.size";
+
+    private final Timer calculatedCostTimer;
+
+    private final Timer defaultCostTimer;
+
+    private final DistributionSummary pageSizeSummary;
+
+    public ChargeSessionMetrics(MeterRegistry meterRegistry) {
+        this.calculatedCostTimer = costCalculationTimer(meterRegistry, "calculated");
+        this.defaultCostTimer = costCalculationTimer(meterRegistry, "default");
+        this.pageSizeSummary = DistributionSummary.builder(PAGE_SIZE)
+                .description("Number of charge sessions returned in a page")
+                .baseUnit("sessions")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public void recordCostCalculation(boolean assignDefaultCost, long durationNanos) {
+        (assignDefaultCost ? defaultCostTimer : calculatedCostTimer).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPageSize(int size) {
+        pageSizeSummary.record(size);
+    }
+
+    private static Timer costCalculationTimer(MeterRegistry meterRegistry, String cost) {
+        return Timer.builder(COST_CALCULATION)
+                .description("Time to end a charge session and calculate its cost")
+                .tag("cost", cost)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -6,26 +6,44 @@ import co.bk.task.restapi.model.ChargeSession;
 import co.bk.task.restapi.model.Vehicle;
 import co.bk.task.restapi.repository.ChargePointRepository;
 import co.bk.task.restapi.repository.VehicleRepository;
+import co.bk.task.restapi.service.dto.ChargeSessionBatchResultDto;
+import co.bk.task.restapi.service.dto.ChargeSessionCreateDto;
 import co.bk.task.restapi.service.dto.ChargeSessionDto;
-import co.bk.task.restapi.util.EndTimeComparator;
+import co.bk.task.restapi.service.dto.ChargeSessionPageDto;
+import co.bk.task.restapi.service.dto.ChargeSessionsVersionDto;
+import co.bk.task.restapi.service.journal.ChargeSessionEndJournal;
+import co.bk.task.restapi.service.journal.ChargeSessionEndJournal.EndEvent;
+import co.bk.task.restapi.service.tariff.TariffEngine;
+import co.bk.task.restapi.util.ChargeSessionFilter;
+import co.bk.task.restapi.util.KeysetCursor;
 import co.bk.task.restapi.util.SortParameterEnum;
 import co.bk.task.restapi.repository.ChargeSessionListRepository;
+import co.bk.task.restapi.service.ChargeSessionEventHub.EventType;
+import co.bk.task.restapi.service.VehicleChargeSummaryService.RollupDeltas;
 import co.bk.task.restapi.web.exceptionhandling.ApplicationException;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
-import java.math.MathContext;
-import java.math.RoundingMode;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,10 +53,9 @@ public class ChargeSessionService {
 
     public static final BigDecimal MINIMUM_CONNECTION_FEE = new BigDecimal(1);
 
-    public static final Long MILLISECONDS_IN_HOUR = 60 * 60 * 1000L;
+    private static final long MINIMUM_CONNECTION_FEE_MICRO_CENTS = MINIMUM_CONNECTION_FEE.movePointRight(TariffEngine.MONEY_SCALE).longValueExact();
 
-    @Value("${application.costOfPowerPerKwh}")
-    private final Double costOfPowerPerKwh;
+    private final TariffEngine tariffEngine;
 
     private final ChargeSessionListRepository chargeSessionListRepository;
 
@@ -48,95 +65,377 @@ public class ChargeSessionService {
 
     private final ChargeSessionConverter chargeSessionConverter;
 
-    public List<ChargeSessionDto> getChargeSessionsForVehicleSorted(Long vehicleId, SortParameterEnum sortedBy) {
-
-        List<ChargeSessionDto> chargeSessionVOList = getChargeSessionsForVehicle(vehicleId);
-
-        switch (sortedBy) {
-            case START_TIME_ASC:
-                chargeSessionVOList.sort(Comparator.comparing(ChargeSessionDto::getStartTime));
-                break;
-            case START_TIME_DESC:
-                chargeSessionVOList.sort(Comparator.comparing(ChargeSessionDto::getStartTime, Comparator.reverseOrder()));
-                break;
-            case END_TIME_ASC:
-                Collections.sort(chargeSessionVOList, new EndTimeComparator());
-                break;
-            case END_TIME_DESC:
-                Collections.sort(chargeSessionVOList, new EndTimeComparator().reversed());
-                break;
-        }
-        return chargeSessionVOList;
-    }
+    private final ChargeSessionMetrics chargeSessionMetrics;
+
+    private final VehicleChargeSummaryService vehicleChargeSummaryService;
+
+    private final VehicleLocks vehicleLocks;
+
+    private final OptimisticLockRetry optimisticLockRetry;
+
+    private final ChargeSessionEndJournal chargeSessionEndJournal;
+
+    private final ChargeSessionEventHub chargeSessionEventHub;
 
     /**
-     * Get ChargeSessions for a specific vehicle
+     * Get a page of ChargeSessions for a specific vehicle. Sorting and paging is done by the database (keyset pagination)
+     * so neither memory nor response time grows with the length of the vehicle's history. Sessions are read as DTO
+     * projections, not entities.
+     *
      * @param vehicleId unique id assigned to the vehicle (not its license plate number)
-     * @return list of charge sessions for the vehicle
+     * @param filter start time range, status, charge point and cost range filters (ChargeSessionFilter.NONE for none)
+     * @param sortedBy sort order
+     * @param after cursor of the previous page or null for the first page
+     * @param limit maximum number of charge sessions in the page
+     * @return page of charge sessions for the vehicle and the cursor of the next page
      */
-    private List<ChargeSessionDto> getChargeSessionsForVehicle(Long vehicleId) {
+    public ChargeSessionPageDto getChargeSessionsForVehicleSorted(Long vehicleId, ChargeSessionFilter filter, SortParameterEnum sortedBy, KeysetCursor after, int limit) {
+
+        // Check vehicle exists
+        vehicleRepository.findById(vehicleId).orElseThrow(() -> new ApplicationException(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_VEHICLE, new String[] { String.valueOf(vehicleId) }));
+
+        // Fetch one extra record to find out whether there is a next page
+        List<ChargeSessionDto> chargeSessions = chargeSessionListRepository.findDtoPageForVehicle(vehicleId, filter, sortedBy, after, limit + 1);
+        boolean hasNextPage = chargeSessions.size() > limit;
+
+        List<ChargeSessionDto> chargeSessionDtoList = hasNextPage ? chargeSessions.subList(0, limit) : chargeSessions;
+
+        chargeSessionMetrics.recordPageSize(chargeSessionDtoList.size());
+
+        String nextCursor = hasNextPage
+                ? KeysetCursor.after(sortedBy, chargeSessionDtoList.get(chargeSessionDtoList.size() - 1)).encode()
+                : null;
+
+        return new ChargeSessionPageDto(chargeSessionDtoList, nextCursor);
+    }
 
+    /**
+     * Version stamp of the charge session history of a vehicle, for conditional GET of its pages. Costs the (cached)
+     * vehicle lookup plus one aggregate query; no session is loaded.
+     *
+     * @param vehicleId unique id assigned to the vehicle (not its license plate number)
+     * @return stamp that changes whenever a session of the vehicle is created or updated
+     */
+    public ChargeSessionsVersionDto getChargeSessionsVersionForVehicle(Long vehicleId) {
 
         // Check vehicle exists
         vehicleRepository.findById(vehicleId).orElseThrow(() -> new ApplicationException(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_VEHICLE, new String[] { String.valueOf(vehicleId) }));
 
-        List<ChargeSession> chargeSessions = chargeSessionListRepository.findChargeSessionsByVehicleId(vehicleId);
+        return chargeSessionListRepository.findVersionByVehicleId(vehicleId);
+    }
 
-        List<ChargeSessionDto> chargeSessionDtoList = chargeSessions.stream()
-                .map(chargeSession -> {
-                  return chargeSessionConverter.convert(chargeSession);
-                } )
-                .collect(Collectors.toList());
+    /**
+     * Live created and ended events of the sessions of a vehicle or of a charge point, as Server-Sent Events.
+     *
+     * @param vehicleId vehicle to follow, or null
+     * @param chargePointId charge point to follow, or null
+     */
+    public SseEmitter subscribeToChargeSessionEvents(Long vehicleId, Long chargePointId) {
 
-        return chargeSessionDtoList;
+        if ((vehicleId == null) == (chargePointId == null)) {
+            throw new ApplicationException(ApplicationException.ErrorCode.INVALID_STREAM_PARAMETER);
+        }
+        if (vehicleId != null) {
+            vehicleRepository.findById(vehicleId).orElseThrow(() -> new ApplicationException(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_VEHICLE, new String[] { String.valueOf(vehicleId) }));
+        } else {
+            chargePointRepository.findById(chargePointId).orElseThrow(() -> new ApplicationException(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_CHARGE_POINT, new String[] { String.valueOf(chargePointId) }));
+        }
+
+        return chargeSessionEventHub.subscribe(vehicleId, chargePointId);
     }
 
+    /**
+     * Version stamp of a charge session (its optimistic lock version), for conditional GET.
+     *
+     * @return the stamp, or empty when the session does not exist
+     */
+    public Optional<Long> getChargeSessionVersion(long id) {
+
+        return chargeSessionListRepository.findVersionById(id);
+    }
+
+    /**
+     * End time of a session ended in write-behind mode whose end is not applied yet, if any. Part of the session's
+     * version stamp, as getChargeSessionById shows the session ended while the end is pending.
+     */
+    public OptionalLong getPendingEndTime(long id) {
+
+        return chargeSessionEndJournal.pendingEndTime(id);
+    }
+
+    /**
+     * A charge session. A session ended in write-behind mode is shown ended at the accepted time before the end is
+     * applied; its total cost is calculated, and shown, once the flusher applies the end.
+     */
     public ChargeSessionDto getChargeSessionById(long id) {
 
-        ChargeSession chargeSession = chargeSessionListRepository.findById(id).orElseThrow(
+        ChargeSessionDto chargeSessionDto = chargeSessionListRepository.findDtoById(id).orElseThrow(
                 () -> new ApplicationException(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_CHARGE_SESSION,
                         new String[] { String.valueOf(id) }));
-
-        return chargeSessionConverter.convert(chargeSession);
+        if (chargeSessionDto.getEndTime() == null) {
+            chargeSessionEndJournal.pendingEndTime(id).ifPresent(chargeSessionDto::setEndTime);
+        }
+        return chargeSessionDto;
     }
 
-    @Transactional
     public ChargeSessionDto createChargeSession(Long vehicleId , Long chargePointId) {
 
+        // Retried when ending the vehicle's dangling session conflicts with a concurrent end of it
+        return optimisticLockRetry.inTransaction(() -> createChargeSessionInTransaction(vehicleId, chargePointId));
+    }
+
+    private ChargeSessionDto createChargeSessionInTransaction(Long vehicleId , Long chargePointId) {
+
         // Check vehicle exists
         Vehicle vehicle = vehicleRepository.findById(vehicleId).orElseThrow(() -> new ApplicationException(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_VEHICLE, new String[] { String.valueOf(vehicleId) }));
 
+        // One request at a time per vehicle may look for its open session and create the next one (until commit)
+        vehicleLocks.lockUntilTransactionCompletes(List.of(vehicleId));
+
         /*
          * Let's assume customers tried to submit their end time when they last disconnected their charger but their app or this API failed
          * to process the end time (for some unknown reason). As a customer friendly business we do not want to overcharge them for this.
          * In addition we only want new sessions to be created when the old session has been ended.
          */
-        vehicle.getChargeSessions().stream()
-                .filter(chargeSession -> chargeSession.getEndTime() == null)
-                .findFirst()
-                .ifPresent(chargeSession -> {
-                    calculateCostAndEndSession(chargeSession, true);
-                });
+        RollupDeltas rollupDeltas = new RollupDeltas();
+        chargeSessionListRepository.findFirstByVehicleIdAndEndTimeIsNull(vehicleId)
+                .ifPresent(chargeSession -> endDanglingSession(chargeSession, rollupDeltas));
+        vehicleChargeSummaryService.record(rollupDeltas);
 
         // Check charge point exists
         ChargePoint chargePoint = chargePointRepository.findById(chargePointId).orElseThrow(() -> new ApplicationException(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_CHARGE_POINT, new String[] { String.valueOf(chargePointId) }));
 
         ChargeSession chargeSessionNow = new ChargeSession(vehicle, chargePoint);
+        chargeSessionListRepository.flush();
         ChargeSession chargeSessionSaved = chargeSessionListRepository.save(chargeSessionNow);
+        flushOpenSessions(List.of(vehicleId));
+        chargeSessionEventHub.publishAfterCommit(EventType.CREATED, chargeSessionSaved);
         return chargeSessionConverter.convert(chargeSessionSaved);
     }
 
 
-    @Transactional
+    /**
+     * End a charge session and calculate its cost. Idempotent: ending an ended session changes nothing and costs one
+     * primary key read of the session (no joins, no cost calculation, no write), so a charger gateway can repeat the
+     * request safely. A concurrent end of the same session wins or loses on the session's version; the loser is retried
+     * and then finds the session ended.
+     *
+     * In write-behind mode (application.endJournal.enabled) the end is appended to the ChargeSessionEndJournal and
+     * applied to the database shortly after, with the cost calculated for the time the request was accepted. Repeating
+     * the request while the end is pending changes nothing either. GET /charge-sessions/{id} shows the session ended
+     * (without a cost) from the acknowledgement on; the session list and the charge summary show the end once it is
+     * applied, up to one flush interval later.
+     */
     public void updateChargeSession(Long id) {
 
-        ChargeSession chargeSession = chargeSessionListRepository.findById(id).orElseThrow(
-                () -> new ApplicationException(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_CHARGE_SESSION,
-                        new String[] { String.valueOf(id) }));
+        // Ended, or ended in write-behind mode and not yet applied
+        if (getChargeSessionById(id).getEndTime() != null) {
+            return;
+        }
+
+        if (chargeSessionEndJournal.isEnabled() && chargeSessionEndJournal.append(id, System.currentTimeMillis())) {
+            return;
+        }
+
+        optimisticLockRetry.runInTransaction(() -> {
+            ChargeSession chargeSession = chargeSessionListRepository.findById(id).orElseThrow(
+                    () -> new ApplicationException(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_CHARGE_SESSION,
+                            new String[] { String.valueOf(id) }));
+
+            // Ended by a concurrent request since the check above
+            if (chargeSession.getEndTime() != null) {
+                return;
+            }
 
-        calculateCostAndEndSession(chargeSession, false);
+            RollupDeltas rollupDeltas = new RollupDeltas();
+            calculateCostAndEndSession(chargeSession, false, System.currentTimeMillis(), rollupDeltas);
 
-        chargeSessionListRepository.save(chargeSession);
+            chargeSessionListRepository.save(chargeSession);
+            vehicleChargeSummaryService.record(rollupDeltas);
+        });
+    }
+
+    /**
+     * Apply end events of the ChargeSessionEndJournal in one transaction: each open session is ended at the time its
+     * event was accepted. Sessions ended in the meantime (or by an earlier replay of the event) and sessions that no
+     * longer exist are skipped.
+     */
+    public void applyEndEvents(List<EndEvent> endEvents) {
+
+        optimisticLockRetry.runInTransaction(() -> {
+            Map<Long, ChargeSession> chargeSessions = chargeSessionListRepository.findAllWithAssociationsById(
+                            endEvents.stream().map(EndEvent::getChargeSessionId).collect(Collectors.toSet())).stream()
+                    .collect(Collectors.toMap(ChargeSession::getId, Function.identity()));
+
+            RollupDeltas rollupDeltas = new RollupDeltas();
+            for (EndEvent endEvent : endEvents) {
+                ChargeSession chargeSession = chargeSessions.get(endEvent.getChargeSessionId());
+                if (chargeSession != null && chargeSession.getEndTime() == null) {
+                    calculateCostAndEndSession(chargeSession, false, endEvent.getEndTime(), rollupDeltas);
+                }
+            }
+
+            chargeSessionListRepository.saveAll(chargeSessions.values());
+            vehicleChargeSummaryService.record(rollupDeltas);
+        });
+    }
+
+    /**
+     * Create charge sessions in bulk, e.g. when a charge point backend replays the start events it buffered while offline.
+     *
+     * All referenced vehicles, charge points and open sessions are resolved with one IN query each and the new sessions
+     * are written with batched inserts in a single transaction. Items are applied in order, so a second item for the same
+     * vehicle ends the session created by the first item (as consecutive single requests would).
+     *
+     * @param chargeSessionCreateDtos items to create
+     * @return one result per item in request order: 201 and the new session id, or the error the single request would return
+     */
+    public List<ChargeSessionBatchResultDto> createChargeSessions(List<ChargeSessionCreateDto> chargeSessionCreateDtos) {
+
+        return optimisticLockRetry.inTransaction(() -> createChargeSessionsInTransaction(chargeSessionCreateDtos));
+    }
+
+    private List<ChargeSessionBatchResultDto> createChargeSessionsInTransaction(List<ChargeSessionCreateDto> chargeSessionCreateDtos) {
+
+        Set<Long> vehicleIds = new HashSet<>();
+        Set<Long> chargePointIds = new HashSet<>();
+        for (ChargeSessionCreateDto chargeSessionCreateDto : chargeSessionCreateDtos) {
+            if (chargeSessionCreateDto.getVehicleId() != null) vehicleIds.add(chargeSessionCreateDto.getVehicleId());
+            if (chargeSessionCreateDto.getChargePointId() != null) chargePointIds.add(chargeSessionCreateDto.getChargePointId());
+        }
+
+        vehicleLocks.lockUntilTransactionCompletes(vehicleIds);
+
+        Map<Long, Vehicle> vehicles = vehicleRepository.findAllById(vehicleIds).stream()
+                .collect(Collectors.toMap(Vehicle::getId, Function.identity()));
+        Map<Long, ChargePoint> chargePoints = chargePointRepository.findAllById(chargePointIds).stream()
+                .collect(Collectors.toMap(ChargePoint::getId, Function.identity()));
+        Map<Long, ChargeSession> openSessionByVehicleId = new HashMap<>();
+        for (ChargeSession openSession : chargeSessionListRepository.findByVehicleIdInAndEndTimeIsNull(vehicleIds)) {
+            openSessionByVehicleId.putIfAbsent(openSession.getVehicle().getId(), openSession);
+        }
+
+        RollupDeltas rollupDeltas = new RollupDeltas();
+        ChargeSession[] created = new ChargeSession[chargeSessionCreateDtos.size()];
+        ChargeSessionBatchResultDto[] results = new ChargeSessionBatchResultDto[chargeSessionCreateDtos.size()];
+
+        for (int i = 0; i < chargeSessionCreateDtos.size(); i++) {
+            ChargeSessionCreateDto chargeSessionCreateDto = chargeSessionCreateDtos.get(i);
+            Long vehicleId = chargeSessionCreateDto.getVehicleId();
+            Long chargePointId = chargeSessionCreateDto.getChargePointId();
+
+            if (vehicleId == null || chargePointId == null) {
+                results[i] = ChargeSessionBatchResultDto.failure(null, new ApplicationException(ApplicationException.ErrorCode.SAVE_SESSION_INCOMPLETE));
+                continue;
+            }
+            Vehicle vehicle = vehicles.get(vehicleId);
+            if (vehicle == null) {
+                results[i] = ChargeSessionBatchResultDto.failure(null, new ApplicationException(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_VEHICLE, new String[] { String.valueOf(vehicleId) }));
+                continue;
+            }
+            ChargePoint chargePoint = chargePoints.get(chargePointId);
+            if (chargePoint == null) {
+                results[i] = ChargeSessionBatchResultDto.failure(null, new ApplicationException(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_CHARGE_POINT, new String[] { String.valueOf(chargePointId) }));
+                continue;
+            }
+
+            // Same rule as createChargeSession: a dangling session is ended with the default cost
+            ChargeSession openSession = openSessionByVehicleId.get(vehicleId);
+            if (openSession != null) {
+                endDanglingSession(openSession, rollupDeltas);
+            }
+
+            created[i] = new ChargeSession(vehicle, chargePoint);
+            openSessionByVehicleId.put(vehicleId, created[i]);
+        }
+
+        // Ended sessions are written first, then the inserts, each as JDBC batches. A vehicle ending several sessions in
+        // the batch leaves only the last one open.
+        chargeSessionListRepository.flush();
+        chargeSessionListRepository.saveAll(Arrays.stream(created).filter(Objects::nonNull).toList());
+        flushOpenSessions(vehicleIds);
+        vehicleChargeSummaryService.record(rollupDeltas);
+
+        for (int i = 0; i < results.length; i++) {
+            if (created[i] != null) {
+                results[i] = ChargeSessionBatchResultDto.success(created[i].getId(), HttpStatus.CREATED.value());
+                chargeSessionEventHub.publishAfterCommit(EventType.CREATED, created[i]);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * End charge sessions in bulk, e.g. when a charge point backend replays the stop events it buffered while offline.
+     *
+     * Sessions are loaded with one IN query and their updates are flushed as JDBC batches in a single transaction.
+     * Sessions that are already ended are left as they are (see updateChargeSession); a session whose end was accepted
+     * by the journal but is not applied yet is ended at the accepted time.
+     *
+     * @param ids ids of the charge sessions to end
+     * @return one result per id in request order: 204, or 404 when the session does not exist
+     */
+    public List<ChargeSessionBatchResultDto> endChargeSessions(List<Long> ids) {
+
+        return optimisticLockRetry.inTransaction(() -> endChargeSessionsInTransaction(ids));
+    }
+
+    private List<ChargeSessionBatchResultDto> endChargeSessionsInTransaction(List<Long> ids) {
+
+        Map<Long, ChargeSession> chargeSessions = chargeSessionListRepository.findAllWithAssociationsById(
+                        ids.stream().filter(Objects::nonNull).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(ChargeSession::getId, Function.identity()));
+
+        RollupDeltas rollupDeltas = new RollupDeltas();
+        List<ChargeSessionBatchResultDto> results = new ArrayList<>(ids.size());
+
+        for (Long id : ids) {
+            ChargeSession chargeSession = chargeSessions.get(id);
+            if (chargeSession == null) {
+                results.add(ChargeSessionBatchResultDto.failure(id, new ApplicationException(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_CHARGE_SESSION, new String[] { String.valueOf(id) })));
+                continue;
+            }
+
+            // Ended sessions, including a repeated id in the same batch, are not ended again
+            if (chargeSession.getEndTime() == null) {
+                long endTime = chargeSessionEndJournal.pendingEndTime(id).orElseGet(System::currentTimeMillis);
+                calculateCostAndEndSession(chargeSession, false, endTime, rollupDeltas);
+            }
+            results.add(ChargeSessionBatchResultDto.success(id, HttpStatus.NO_CONTENT.value()));
+        }
+
+        chargeSessionListRepository.saveAll(chargeSessions.values());
+        vehicleChargeSummaryService.record(rollupDeltas);
+        return results;
+    }
+
+    /**
+     * Flush new open sessions. A unique index allows one open session per vehicle (see 008-create-open-session-unique-index.sql);
+     * it is only violated when another node created a session for one of the vehicles concurrently, as VehicleLocks
+     * serialises the requests of this node.
+     */
+    private void flushOpenSessions(Collection<Long> vehicleIds) {
+        try {
+            chargeSessionListRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Open charge session of vehicle(s) {} created concurrently", vehicleIds, e);
+            throw new ApplicationException(ApplicationException.ErrorCode.CONCURRENT_CHARGE_SESSION_CHANGE,
+                    new String[] { String.valueOf(vehicleIds) });
+        }
+    }
+
+    /**
+     * End the open session of a vehicle that starts a new one. A session whose end was accepted by the journal but is
+     * not applied yet is ended as requested; otherwise the customer could not end it and the default cost applies.
+     */
+    private void endDanglingSession(ChargeSession chargeSession, RollupDeltas rollupDeltas) {
+
+        OptionalLong pendingEndTime = chargeSession.getId() == null ? OptionalLong.empty() : chargeSessionEndJournal.pendingEndTime(chargeSession.getId());
+        if (pendingEndTime.isPresent()) {
+            calculateCostAndEndSession(chargeSession, false, pendingEndTime.getAsLong(), rollupDeltas);
+        } else {
+            calculateCostAndEndSession(chargeSession, true, System.currentTimeMillis(), rollupDeltas);
+        }
     }
 
     /**
@@ -148,74 +447,45 @@ public class ChargeSessionService {
      * Default cost is assigned so as not to overcharge a customer (we assume the customer did everything asked of them and the only
      * reason the session was not ended was due to a technical issue).
      *
-     * @param chargeSession
+     * The session is added to the vehicle's charge rollups. Only open sessions are ended; callers skip ended ones.
+     *
+     * @param chargeSession open session
      * @param assignDefaultCost true if the session does not possess an end time (and a new session has just been requested by the customer)
+     * @param endTime UTC timestamp the session ends at
+     * @param rollupDeltas collects the session for VehicleChargeSummaryService.record
      */
-    private void calculateCostAndEndSession(ChargeSession chargeSession, boolean assignDefaultCost) {
+    private void calculateCostAndEndSession(ChargeSession chargeSession, boolean assignDefaultCost, long endTime, RollupDeltas rollupDeltas) {
 
-        // End charging session
-        long utcTimestamp = System.currentTimeMillis();
-        chargeSession.setEndTime(utcTimestamp);
-        chargeSession.setDateUpdated(utcTimestamp);
+        long startNanos = System.nanoTime();
 
-        /*
-         * Calculate cost of charging session where:
-         *   Energy (kWh) = Power (kW) × Time (hours)
-         * and
-         *   Cost of Power (Euros) = Energy (kWh) × Cost of Power (Euros per kWh)
-         */
-        Double batteryCapacity = chargeSession.getVehicle().getBatteryCapacityKwh();
-        Double batteryLevelPercentAtStart = chargeSession.getVehicle().getBatteryLevelPercent();
-        Double chargingPowerKw = chargeSession.getChargePoint().getChargingPowerKw();
+        // End charging session
+        chargeSession.setEndTime(endTime);
+        chargeSession.setDateUpdated(System.currentTimeMillis());
 
+        long costMicroCents;
+        long energyConsumedMicroJoules = 0;
         if (assignDefaultCost) {
             // Default cost
+            costMicroCents = MINIMUM_CONNECTION_FEE_MICRO_CENTS;
             chargeSession.setTotalCost(MINIMUM_CONNECTION_FEE);
 
         } else {
-            // Current charging session being ended. Calculate the cost of the session.
-
-            // Energy (kWh) = Power (kW) × Time (hours)
-            BigDecimal energyConsumedKwh = null;
-            if (batteryLevelPercentAtStart < Double.valueOf("100")) {
-
-                // Battery was not fully charged at the start of the session
-                BigDecimal durationChargeSessionInHours = new BigDecimal(chargeSession.getEndTime() - chargeSession.getStartTime())
-                        .divide(new BigDecimal(MILLISECONDS_IN_HOUR), new MathContext(18, RoundingMode.HALF_EVEN));
-
-                BigDecimal maxEnergyDeliveredDuringSession = new BigDecimal(chargingPowerKw).multiply(
-                        durationChargeSessionInHours, new MathContext(18, RoundingMode.HALF_EVEN)); // KwH
-
-                BigDecimal energyRequiredByBatteryToFullyCharge = new BigDecimal(String.valueOf(batteryCapacity * (100 - batteryLevelPercentAtStart) / 100)); // KwH
-
-                // Customer billed only for the energy consumed.
-                if (energyRequiredByBatteryToFullyCharge.compareTo(maxEnergyDeliveredDuringSession) > 0) {
-                    // Charger not connected long enough to fully charge the battery.
-                    // Battery not fully charged
-                    energyConsumedKwh = maxEnergyDeliveredDuringSession;
-                } else if (energyRequiredByBatteryToFullyCharge.compareTo(maxEnergyDeliveredDuringSession) < 0) {
-                    // Charger was connected longer than necessary in order to fully charge the battery.
-                    // Battery is fully charged.
-                    energyConsumedKwh = energyRequiredByBatteryToFullyCharge;
-                } else if (energyRequiredByBatteryToFullyCharge.compareTo(maxEnergyDeliveredDuringSession) == 0) {
-                    // Charger was connected for exactly the right length of time in order to fully charge the battery.
-                    // Battery is fully charged.
-                    energyConsumedKwh = energyRequiredByBatteryToFullyCharge;
-                }
-
-                // Cost of Power (Euros) = Energy (kWh) × Cost of Power (Euros per kWh)
-                BigDecimal costOfPower = energyConsumedKwh.multiply(
-                        new BigDecimal(costOfPowerPerKwh), new MathContext(18, RoundingMode.HALF_EVEN));
-
-                BigDecimal totalCost = costOfPower.add(MINIMUM_CONNECTION_FEE);
-                chargeSession.setTotalCost(totalCost);
+            // Current charging session being ended. Calculate the cost of the session in fixed-point units, see TariffEngine.
+            // Assumption is that Battery Level for the vehicle record is updated by some other process
+            energyConsumedMicroJoules = tariffEngine.energyConsumedMicroJoules(
+                    chargeSession.getEndTime() - chargeSession.getStartTime(),
+                    chargeSession.getChargePoint().getChargingPowerKw(),
+                    chargeSession.getVehicle().getBatteryCapacityKwh(),
+                    chargeSession.getVehicle().getBatteryLevelPercent());
+
+            // Rounded to the cents persisted, so the rollups add up to the session costs (and to the backfilled buckets)
+            costMicroCents = TariffEngine.roundToCents(tariffEngine.sessionCostMicroCents(energyConsumedMicroJoules));
+            chargeSession.setTotalCost(TariffEngine.toEuros(costMicroCents));
+        }
 
-                // Assumption is that Battery Level for the vehicle record is updated by some other process
+        rollupDeltas.add(chargeSession.getVehicle().getId(), endTime, costMicroCents, energyConsumedMicroJoules);
+        chargeSessionEventHub.publishAfterCommit(EventType.ENDED, chargeSession);
 
-            } else {
-                // Battery was full when the session started
-                chargeSession.setTotalCost(MINIMUM_CONNECTION_FEE);
-            }
-        }
+        chargeSessionMetrics.recordCostCalculation(assignDefaultCost, System.nanoTime() - startNanos);
     }
 }
@@ -0,0 +1,81 @@
+package co.bk.task.restapi.service;
+
+import co.bk.task.restapi.web.exceptionhandling.ApplicationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Bounded retry of a read-modify-write of charge sessions that lost an optimistic lock (@Version) to a concurrent
+ * request, e.g. two PUTs ending the same session. Each attempt runs in a transaction of its own and reads the state the
+ * winner committed; attempts are spaced by a short, growing and jittered backoff. When all attempts conflict the
+ * request fails with 409 RESTAPI-0012 and can be retried by the client.
+ *
+ * Called inside a transaction of the caller's the work runs once: the conflict has marked that transaction rollback-only.
+ */
+@Component
+@Slf4j
+public class OptimisticLockRetry {
+
+    private final TransactionOperations transactionOperations;
+
+    private final int maxAttempts;
+
+    private final long backoffMillis;
+
+    public OptimisticLockRetry(TransactionOperations transactionOperations,
+                               @Value("${application.optimisticLock.maxAttempts}") int maxAttempts,
+                               @Value("${application.optimisticLock.backoff}") Duration backoff) {
+        this.transactionOperations = transactionOperations;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoff.toMillis();
+    }
+
+    public <T> T inTransaction(Supplier<T> work) {
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionOperations.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("Charge session update conflicted on all {} attempts", attempt, e);
+                    throw new ApplicationException(ApplicationException.ErrorCode.CHARGE_SESSION_UPDATE_CONFLICT,
+                            new String[] { String.valueOf(attempt) });
+                }
+                log.debug("Charge session update conflicted on attempt {}, retrying", attempt);
+                backoff(attempt);
+            }
+        }
+    }
+
+    public void runInTransaction(Runnable work) {
+        inTransaction(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private void backoff(int attempt) {
+        if (backoffMillis == 0) {
+            return;
+        }
+        try {
+            Thread.sleep(backoffMillis * attempt + ThreadLocalRandom.current().nextLong(backoffMillis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApplicationException(ApplicationException.ErrorCode.CHARGE_SESSION_UPDATE_CONFLICT,
+                    new String[] { String.valueOf(attempt) });
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package co.bk.task.restapi.service;
+
+import co.bk.task.restapi.model.VehicleChargeRollup;
+import co.bk.task.restapi.model.VehicleChargeRollupId;
+import co.bk.task.restapi.repository.VehicleChargeRollupRepository;
+import co.bk.task.restapi.repository.VehicleRepository;
+import co.bk.task.restapi.service.dto.ChargeSummaryBucketDto;
+import co.bk.task.restapi.service.dto.ChargeSummaryDto;
+import co.bk.task.restapi.service.tariff.TariffEngine;
+import co.bk.task.restapi.util.SummaryGranularityEnum;
+import co.bk.task.restapi.web.exceptionhandling.ApplicationException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Per vehicle charge rollups (see VehicleChargeRollup): maintained as sessions end and read by the charge summary.
+ *
+ * Ended sessions are collected in a {@link RollupDeltas} and written once at the end of the transaction that ended them,
+ * one update (or insert for a new bucket) per bucket touched. The vehicles are locked first, in id order, so two
+ * transactions cannot both insert the same bucket and concurrent batches cannot deadlock on each other's rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class VehicleChargeSummaryService {
+
+    private final VehicleChargeRollupRepository vehicleChargeRollupRepository;
+
+    private final VehicleRepository vehicleRepository;
+
+    /**
+     * Add the collected sessions to the rollups. Must run in the transaction that ended the sessions.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(RollupDeltas rollupDeltas) {
+
+        if (rollupDeltas.isEmpty()) {
+            return;
+        }
+
+        TreeSet<Long> vehicleIds = new TreeSet<>();
+        for (VehicleChargeRollupId id : rollupDeltas.deltas.keySet()) {
+            vehicleIds.add(id.getVehicleId());
+        }
+        vehicleRepository.lockAllById(vehicleIds);
+
+        long now = System.currentTimeMillis();
+        for (Map.Entry<VehicleChargeRollupId, long[]> delta : rollupDeltas.deltas.entrySet()) {
+            VehicleChargeRollupId id = delta.getKey();
+            long[] totals = delta.getValue();
+            if (vehicleChargeRollupRepository.increment(id, totals[0], totals[1], totals[2], now) == 0) {
+                vehicleChargeRollupRepository.insert(id.getVehicleId(), id.getGranularity().name(), id.getBucketStart(),
+                        totals[0], totals[1], totals[2], now);
+            }
+        }
+    }
+
+    /**
+     * Spend and energy of a vehicle per UTC day or month. Reads one rollup row per bucket, whatever the number of sessions.
+     *
+     * @param vehicleId unique id assigned to the vehicle (not its license plate number)
+     * @param granularity bucket size
+     * @param from first day of the range, inclusive (the month containing it for monthly buckets)
+     * @param to last day of the range, inclusive
+     * @return buckets with at least one ended session, oldest first, and the totals of the range
+     */
+    public ChargeSummaryDto getChargeSummary(Long vehicleId, SummaryGranularityEnum granularity, LocalDate from, LocalDate to) {
+
+        // Check vehicle exists
+        vehicleRepository.findById(vehicleId).orElseThrow(() -> new ApplicationException(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_VEHICLE, new String[] { String.valueOf(vehicleId) }));
+
+        List<VehicleChargeRollup> rollups = vehicleChargeRollupRepository.findBuckets(vehicleId, granularity,
+                granularity.bucketStart(from), SummaryGranularityEnum.DAY.bucketStart(to.plusDays(1)));
+
+        List<ChargeSummaryBucketDto> buckets = new ArrayList<>(rollups.size());
+        long sessionCount = 0;
+        long totalCostMicroCents = 0;
+        long energyMicroJoules = 0;
+        for (VehicleChargeRollup rollup : rollups) {
+            long bucketStart = rollup.getId().getBucketStart();
+            buckets.add(new ChargeSummaryBucketDto(granularity.period(bucketStart), bucketStart, rollup.getSessionCount(),
+                    TariffEngine.toEuros(rollup.getTotalCostMicroCents()), TariffEngine.toKwh(rollup.getEnergyMicroJoules())));
+            sessionCount += rollup.getSessionCount();
+            totalCostMicroCents += rollup.getTotalCostMicroCents();
+            energyMicroJoules += rollup.getEnergyMicroJoules();
+        }
+
+        return new ChargeSummaryDto(vehicleId, granularity.getGranularityParam(), sessionCount,
+                TariffEngine.toEuros(totalCostMicroCents), TariffEngine.toKwh(energyMicroJoules), buckets);
+    }
+
+    /**
+     * Sessions ended in the current transaction, summed per rollup bucket (every session counts in its day and its month).
+     */
+    public static class RollupDeltas {
+
+        // Sorted so buckets are written in a stable order. Values: session count, cost (micro-cents), energy (microjoules)
+        private final SortedMap<VehicleChargeRollupId, long[]> deltas = new TreeMap<>();
+
+        public void add(Long vehicleId, long endTime, long costMicroCents, long energyMicroJoules) {
+            for (SummaryGranularityEnum granularity : SummaryGranularityEnum.values()) {
+                long[] totals = deltas.computeIfAbsent(
+                        new VehicleChargeRollupId(vehicleId, granularity, granularity.bucketStart(endTime)), id -> new long[3]);
+                totals[0]++;
+                totals[1] += costMicroCents;
+                totals[2] += energyMicroJoules;
+            }
+        }
+
+        public boolean isEmpty() {
+            return deltas.isEmpty();
+        }
+
+        public int size() {
+            return deltas.size();
+        }
+    }
+}
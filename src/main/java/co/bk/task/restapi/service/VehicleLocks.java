@@ -0,0 +1,86 @@
+package co.bk.task.restapi.service;
+
+import co.bk.task.restapi.web.exceptionhandling.ApplicationException;
+import com.google.common.util.concurrent.Striped;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Per vehicle mutual exclusion within this node, so two requests cannot both find no open session for a vehicle and both
+ * create one.
+ *
+ * Vehicle ids hash onto a fixed number of striped ReentrantLocks: memory does not grow with the number of vehicles and
+ * requests for unrelated vehicles only wait for each other if their ids share a stripe. A lock is held until the current
+ * transaction has committed or rolled back, so the next request for the vehicle sees the committed sessions. ReentrantLock
+ * parks a waiting virtual thread without pinning its carrier.
+ *
+ * Across nodes the unique index on open sessions (008-create-open-session-unique-index.sql) is the guarantee.
+ */
+@Component
+public class VehicleLocks {
+
+    private final Striped<Lock> locks;
+
+    private final long timeoutNanos;
+
+    public VehicleLocks(@Value("${application.vehicleLocks.stripes}") int stripes,
+                        @Value("${application.vehicleLocks.timeout}") Duration timeout) {
+        this.locks = Striped.lock(stripes);
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    /**
+     * Lock the given vehicles until the current transaction completes. Stripes are always taken in the same order, so
+     * requests locking several vehicles cannot deadlock.
+     *
+     * @throws ApplicationException 409 if a vehicle is not available within the timeout
+     */
+    public void lockUntilTransactionCompletes(Collection<Long> vehicleIds) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Vehicle locks are released on transaction completion and need an active transaction");
+        }
+
+        Deque<Lock> acquired = new ArrayDeque<>();
+        try {
+            // bulkGet returns the stripes in stripe order (a stripe shared by two ids appears twice and is re-entered)
+            for (Lock lock : locks.bulkGet(vehicleIds)) {
+                if (!lock.tryLock(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                    throw new ApplicationException(ApplicationException.ErrorCode.CONCURRENT_CHARGE_SESSION_CHANGE,
+                            new String[] { String.valueOf(vehicleIds) });
+                }
+                acquired.push(lock);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            unlock(acquired);
+            throw new ApplicationException(ApplicationException.ErrorCode.CONCURRENT_CHARGE_SESSION_CHANGE,
+                    new String[] { String.valueOf(vehicleIds) }, e);
+        } catch (RuntimeException e) {
+            unlock(acquired);
+            throw e;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                unlock(acquired);
+            }
+        });
+    }
+
+    private static void unlock(Deque<Lock> acquired) {
+        while (!acquired.isEmpty()) {
+            acquired.pop().unlock();
+        }
+    }
+}
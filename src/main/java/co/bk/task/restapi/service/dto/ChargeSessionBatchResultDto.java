@@ -0,0 +1,29 @@
+package co.bk.task.restapi.service.dto;
+
+import co.bk.task.restapi.web.exceptionhandling.ApplicationException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Outcome of one item of a batch request. Results are returned in the order of the items in the request.
+ * Failed items carry the HTTP status, application code and detail the equivalent single item request would have returned.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChargeSessionBatchResultDto {
+
+    private Long id;
+    private int status;
+    private String applicationCode;
+    private String detail;
+
+    public static ChargeSessionBatchResultDto success(Long id, int status) {
+        return new ChargeSessionBatchResultDto(id, status, null, null);
+    }
+
+    public static ChargeSessionBatchResultDto failure(Long id, ApplicationException ex) {
+        return new ChargeSessionBatchResultDto(id, ex.getHttpStatusCode(), ex.getApplicationCode(), ex.getDetail());
+    }
+}
@@ -0,0 +1,18 @@
+package co.bk.task.restapi.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * One item of a bulk create: the vehicle and the charge point of the new session. Either id may be null, which fails
+ * the item (not the batch) as the single create request would.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChargeSessionCreateDto {
+
+    private Long vehicleId;
+    private Long chargePointId;
+}
@@ -1,5 +1,6 @@
 package co.bk.task.restapi.service.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -7,11 +8,12 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 /*
- * Data Transfer Object
+ * Data Transfer Object. Serialized by ChargeSessionDtoSerializer.
  */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonSerialize(using = ChargeSessionDtoSerializer.class)
 public class ChargeSessionDto {
 
     private Long id;
@@ -0,0 +1,61 @@
+package co.bk.task.restapi.service.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/*
+ * Hand-written serializer of ChargeSessionDto, the element of every charge session list response and export.
+ *
+ * Writes the same output as Jackson's bean serializer (declaration order, nulls included) without reflective property
+ * access, and with the property names pre-encoded once. Keep the properties in step with ChargeSessionDto; the test
+ * compares both serializers.
+ */
+public class ChargeSessionDtoSerializer extends StdSerializer<ChargeSessionDto> {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString SESSION_ID = new SerializedString("sessionId");
+    private static final SerializableString START_TIME = new SerializedString("startTime");
+    private static final SerializableString END_TIME = new SerializedString("endTime");
+    private static final SerializableString TOTAL_COST = new SerializedString("totalCost");
+    private static final SerializableString VEHICLE_ID = new SerializedString("vehicleId");
+    private static final SerializableString CHARGE_POINT_ID = new SerializedString("chargePointId");
+
+    public ChargeSessionDtoSerializer() {
+        super(ChargeSessionDto.class);
+    }
+
+    @Override
+    public void serialize(ChargeSessionDto chargeSessionDto, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(chargeSessionDto);
+        writeNumber(generator, ID, chargeSessionDto.getId());
+        generator.writeFieldName(SESSION_ID);
+        generator.writeString(chargeSessionDto.getSessionId());
+        writeNumber(generator, START_TIME, chargeSessionDto.getStartTime());
+        writeNumber(generator, END_TIME, chargeSessionDto.getEndTime());
+        generator.writeFieldName(TOTAL_COST);
+        BigDecimal totalCost = chargeSessionDto.getTotalCost();
+        if (totalCost == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(totalCost);
+        }
+        writeNumber(generator, VEHICLE_ID, chargeSessionDto.getVehicleId());
+        writeNumber(generator, CHARGE_POINT_ID, chargeSessionDto.getChargePointId());
+        generator.writeEndObject();
+    }
+
+    private static void writeNumber(JsonGenerator generator, SerializableString name, Long value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value.longValue());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package co.bk.task.restapi.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/*
+ * A page of charge sessions plus the cursor to request the next page (null when this is the last page)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChargeSessionPageDto {
+
+    private List<ChargeSessionDto> chargeSessions;
+    private String nextCursor;
+}
@@ -0,0 +1,22 @@
+package co.bk.task.restapi.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Version stamp of the charge session history of a vehicle. An insert raises the count and every update raises the
+ * session's optimistic lock version by one, so the history changes exactly when the count or the sum of the versions
+ * changes. The latest dateCreated and dateUpdated are kept as well, but they are wall-clock times (two writes in the
+ * same millisecond, or a write on a node whose clock is behind, leave them unchanged), so they cannot be relied on alone.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChargeSessionsVersionDto {
+
+    private Long sessionCount;
+    private Long versionSum;
+    private Long lastCreated;
+    private Long lastUpdated;
+}
@@ -0,0 +1,22 @@
+package co.bk.task.restapi.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/*
+ * Totals of the charge sessions of a vehicle that ended within one UTC day (period 2023-08-12) or month (period 2023-08)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChargeSummaryBucketDto {
+
+    private String period;
+    private Long bucketStart;
+    private Long sessionCount;
+    private BigDecimal totalCost;
+    private BigDecimal energyKwh;
+}
@@ -0,0 +1,25 @@
+package co.bk.task.restapi.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/*
+ * Spend and energy of a vehicle per day or month over a date range, plus the totals of the range. Periods without an
+ * ended session are omitted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChargeSummaryDto {
+
+    private Long vehicleId;
+    private String granularity;
+    private Long sessionCount;
+    private BigDecimal totalCost;
+    private BigDecimal energyKwh;
+    private List<ChargeSummaryBucketDto> buckets;
+}
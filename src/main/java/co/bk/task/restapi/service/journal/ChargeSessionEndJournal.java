@@ -0,0 +1,349 @@
+package co.bk.task.restapi.service.journal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Durable, append-only journal of charge session end events for the write-behind mode of PUT /charge-sessions/{id}
+ * (application.endJournal.enabled). A request appends its event and is acknowledged once the event is on disk;
+ * ChargeSessionEndJournalFlusher applies the events to the database in batches and marks them applied.
+ *
+ * The journal is one memory-mapped file of fixed capacity:
+ *
+ *   header  (16 bytes): magic, epoch, offset up to which events have been applied
+ *   records (24 bytes): charge session id, end time, epoch, CRC32C of the other fields
+ *
+ * Appends are durable in groups: a request that finds its record not yet forced to disk forces everything appended so
+ * far, so concurrent requests share one fsync. Once every event is applied the journal is rewound to its start under a
+ * new epoch; records of an older epoch, and a torn record of a crashed append, end the scan when the file is opened.
+ * Events between the applied offset and the end of the scan are pending and replayed on start up. Applying an event
+ * twice (a crash between commit and checkpoint) is harmless as ending an ended session is a no-op.
+ *
+ * The journal only rewinds when the flusher has caught up, so under sustained load it can fill. Appends to a full
+ * journal are refused, counted (fullCount) and logged once per epoch; the caller then ends the session synchronously.
+ */
+@Component
+@Slf4j
+public class ChargeSessionEndJournal {
+
+    static final int HEADER_SIZE = 16;
+
+    static final int RECORD_SIZE = 24;
+
+    private static final int MAGIC = 0x43534a31;
+
+    private static final int EPOCH_POSITION = 4;
+
+    private static final int APPLIED_OFFSET_POSITION = 8;
+
+    @Value("${application.endJournal.enabled}")
+    private boolean ENABLED;
+
+    @Value("${application.endJournal.path}")
+    private Path PATH;
+
+    @Value("${application.endJournal.capacity}")
+    private DataSize CAPACITY;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    // End time of every pending event by charge session id, for requests that need a session's state before it is applied
+    private final Map<Long, Long> pendingEndTimes = new ConcurrentHashMap<>();
+
+    // Appends refused because the journal was full
+    private final LongAdder fullAppends = new LongAdder();
+
+    private volatile boolean fullLogged;
+
+    private FileChannel fileChannel;
+
+    private MappedByteBuffer buffer;
+
+    private int capacity;
+
+    private volatile int epoch;
+
+    private volatile int writeOffset;
+
+    private volatile int syncedOffset;
+
+    private volatile int appliedOffset;
+
+    public ChargeSessionEndJournal() {
+    }
+
+    ChargeSessionEndJournal(Path path, DataSize capacity) {
+        this.ENABLED = true;
+        this.PATH = path;
+        this.CAPACITY = capacity;
+    }
+
+    @PostConstruct
+    void open() {
+        if (!ENABLED) {
+            return;
+        }
+        try {
+            if (PATH.getParent() != null) {
+                Files.createDirectories(PATH.getParent());
+            }
+            boolean exists = Files.exists(PATH) && Files.size(PATH) > 0;
+            fileChannel = FileChannel.open(PATH, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            capacity = exists ? (int) Files.size(PATH) : (int) CAPACITY.toBytes();
+            buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open charge session end journal " + PATH, e);
+        }
+
+        if (buffer.getInt(0) == MAGIC) {
+            epoch = buffer.getInt(EPOCH_POSITION);
+            appliedOffset = (int) buffer.getLong(APPLIED_OFFSET_POSITION);
+        } else {
+            epoch = 1;
+            appliedOffset = HEADER_SIZE;
+            buffer.putInt(0, MAGIC);
+            writeHeader();
+        }
+
+        // The first record that is not a valid record of this epoch ends the journal
+        int offset = appliedOffset;
+        while (offset + RECORD_SIZE <= capacity && isValidRecord(offset)) {
+            pendingEndTimes.putIfAbsent(buffer.getLong(offset), buffer.getLong(offset + 8));
+            offset += RECORD_SIZE;
+        }
+        writeOffset = offset;
+        syncedOffset = offset;
+
+        log.info("Opened charge session end journal {} with {} pending events", PATH, (offset - appliedOffset) / RECORD_SIZE);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (fileChannel != null) {
+            buffer.force();
+            fileChannel.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Append an end event and return once it is durable. An end of a session with a pending event appends nothing: the
+     * pending event, and its end time, stands.
+     *
+     * @return false when the journal is full (the caller ends the session synchronously)
+     */
+    public boolean append(long chargeSessionId, long endTime) {
+
+        int recordEpoch;
+        int recordEnd;
+        appendLock.lock();
+        try {
+            recordEpoch = epoch;
+            int offset = writeOffset;
+            if (pendingEndTimes.containsKey(chargeSessionId)) {
+                // The pending event may have been appended by a concurrent request, wait for it to be durable too
+                recordEnd = offset;
+            } else {
+                if (offset + RECORD_SIZE > capacity) {
+                    fullAppends.increment();
+                    if (!fullLogged) {
+                        fullLogged = true;
+                        log.warn("Charge session end journal {} is full ({} pending events), ending sessions synchronously until it is rewound",
+                                PATH, pendingCount());
+                    }
+                    return false;
+                }
+                buffer.putLong(offset, chargeSessionId);
+                buffer.putLong(offset + 8, endTime);
+                buffer.putInt(offset + 16, recordEpoch);
+                buffer.putInt(offset + 20, checksum(chargeSessionId, endTime, recordEpoch));
+                recordEnd = offset + RECORD_SIZE;
+                writeOffset = recordEnd;
+                pendingEndTimes.putIfAbsent(chargeSessionId, endTime);
+            }
+        } finally {
+            appendLock.unlock();
+        }
+
+        sync(recordEpoch, recordEnd);
+        return true;
+    }
+
+    /**
+     * End time of a pending (accepted but not yet applied) end event of the session, if any.
+     */
+    public OptionalLong pendingEndTime(long chargeSessionId) {
+        Long endTime = pendingEndTimes.get(chargeSessionId);
+        return endTime == null ? OptionalLong.empty() : OptionalLong.of(endTime);
+    }
+
+    public int pendingCount() {
+        return (syncedOffset - appliedOffset) / RECORD_SIZE;
+    }
+
+    /**
+     * Number of appends refused because the journal was full, since start up.
+     */
+    public long fullCount() {
+        return fullAppends.sum();
+    }
+
+    /**
+     * Up to maxEvents durable events that have not been applied, oldest first. Called by the flusher only.
+     */
+    public Batch nextBatch(int maxEvents) {
+
+        int from = appliedOffset;
+        int to = Math.min(syncedOffset, from + maxEvents * RECORD_SIZE);
+        List<EndEvent> endEvents = new ArrayList<>((to - from) / RECORD_SIZE);
+        for (int offset = from; offset < to; offset += RECORD_SIZE) {
+            endEvents.add(new EndEvent(buffer.getLong(offset), buffer.getLong(offset + 8)));
+        }
+        return new Batch(endEvents, epoch, to);
+    }
+
+    /**
+     * Record that the events of the batch are committed to the database, and rewind the journal once all are.
+     */
+    public void markApplied(Batch batch) {
+
+        syncLock.lock();
+        try {
+            if (batch.epoch != epoch) {
+                return;
+            }
+            appliedOffset = batch.endOffset;
+            for (EndEvent endEvent : batch.endEvents) {
+                pendingEndTimes.remove(endEvent.getChargeSessionId(), endEvent.getEndTime());
+            }
+
+            appendLock.lock();
+            try {
+                if (appliedOffset == writeOffset) {
+                    epoch++;
+                    appliedOffset = HEADER_SIZE;
+                    writeOffset = HEADER_SIZE;
+                    syncedOffset = HEADER_SIZE;
+                    fullLogged = false;
+                }
+                writeHeader();
+            } finally {
+                appendLock.unlock();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void sync(int recordEpoch, int recordEnd) {
+
+        syncLock.lock();
+        try {
+            // Already forced by another request, or applied and rewound since
+            if (recordEpoch != epoch || syncedOffset >= recordEnd) {
+                return;
+            }
+            int from = syncedOffset;
+            int to = writeOffset;
+            buffer.force(from, to - from);
+            syncedOffset = to;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void writeHeader() {
+        buffer.putInt(EPOCH_POSITION, epoch);
+        buffer.putLong(APPLIED_OFFSET_POSITION, appliedOffset);
+        buffer.force(0, HEADER_SIZE);
+    }
+
+    private boolean isValidRecord(int offset) {
+        long chargeSessionId = buffer.getLong(offset);
+        long endTime = buffer.getLong(offset + 8);
+        int recordEpoch = buffer.getInt(offset + 16);
+        return recordEpoch == epoch && buffer.getInt(offset + 20) == checksum(chargeSessionId, endTime, recordEpoch);
+    }
+
+    private static int checksum(long chargeSessionId, long endTime, int recordEpoch) {
+        CRC32C crc = new CRC32C();
+        for (int shift = 56; shift >= 0; shift -= 8) crc.update((int) (chargeSessionId >>> shift));
+        for (int shift = 56; shift >= 0; shift -= 8) crc.update((int) (endTime >>> shift));
+        for (int shift = 24; shift >= 0; shift -= 8) crc.update(recordEpoch >>> shift);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * A PUT /charge-sessions/{id} accepted at endTime.
+     */
+    public static class EndEvent {
+
+        private final long chargeSessionId;
+
+        private final long endTime;
+
+        public EndEvent(long chargeSessionId, long endTime) {
+            this.chargeSessionId = chargeSessionId;
+            this.endTime = endTime;
+        }
+
+        public long getChargeSessionId() {
+            return chargeSessionId;
+        }
+
+        public long getEndTime() {
+            return endTime;
+        }
+    }
+
+    /**
+     * Events read by nextBatch and the position to mark applied once they are committed.
+     */
+    public static class Batch {
+
+        private final List<EndEvent> endEvents;
+
+        private final int epoch;
+
+        private final int endOffset;
+
+        Batch(List<EndEvent> endEvents, int epoch, int endOffset) {
+            this.endEvents = endEvents;
+            this.epoch = epoch;
+            this.endOffset = endOffset;
+        }
+
+        public List<EndEvent> getEndEvents() {
+            return endEvents;
+        }
+
+        public boolean isEmpty() {
+            return endEvents.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package co.bk.task.restapi.service.journal;
+
+import co.bk.task.restapi.service.ChargeSessionService;
+import co.bk.task.restapi.service.journal.ChargeSessionEndJournal.Batch;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Applies the end events of the ChargeSessionEndJournal to the database: pending events are replayed before the
+ * application starts serving requests, then a background thread applies new events every flush interval, up to batch
+ * size events per transaction (see ChargeSessionService.applyEndEvents). A batch that fails stays in the journal and is
+ * retried on the next interval. On shut down the journal is drained.
+ *
+ * charge.sessions.end.journal.pending gauges the events accepted but not yet applied, charge.sessions.end.journal.full
+ * counts the ends that found the journal full and were applied synchronously instead.
+ */
+@Component
+@Slf4j
+public class ChargeSessionEndJournalFlusher {
+
+    public static final String PENDING = "charge.sessions.end.journal.pending";
+
+    public static final String FULL = "charge.sessions.end.journal.full";
+
+    private final ChargeSessionEndJournal chargeSessionEndJournal;
+
+    private final ChargeSessionService chargeSessionService;
+
+    private final int batchSize;
+
+    private final long flushIntervalNanos;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private volatile boolean running;
+
+    private Thread flusherThread;
+
+    public ChargeSessionEndJournalFlusher(ChargeSessionEndJournal chargeSessionEndJournal,
+                                          ChargeSessionService chargeSessionService,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${application.endJournal.batchSize}") int batchSize,
+                                          @Value("${application.endJournal.flushInterval}") Duration flushInterval) {
+        this.chargeSessionEndJournal = chargeSessionEndJournal;
+        this.chargeSessionService = chargeSessionService;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+
+        if (chargeSessionEndJournal.isEnabled()) {
+            Gauge.builder(PENDING, chargeSessionEndJournal, ChargeSessionEndJournal::pendingCount)
+                    .description("Charge session end events accepted but not yet applied to the database")
+                    .baseUnit("events")
+                    .register(meterRegistry);
+            FunctionCounter.builder(FULL, chargeSessionEndJournal, ChargeSessionEndJournal::fullCount)
+                    .description("Charge session ends applied synchronously because the journal was full")
+                    .baseUnit("events")
+                    .register(meterRegistry);
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (!chargeSessionEndJournal.isEnabled()) {
+            return;
+        }
+
+        // Replay: every event accepted before the last shut down or crash is applied before requests are served
+        int replayed = flush();
+        log.info("Replayed {} charge session end events from the journal", replayed);
+
+        running = true;
+        flusherThread = Thread.ofPlatform().daemon().name("charge-session-end-journal-flusher").start(this::run);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (flusherThread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(flusherThread);
+        flusherThread.join(TimeUnit.SECONDS.toMillis(30));
+        flush();
+    }
+
+    /**
+     * Apply all durable pending events, in batches.
+     *
+     * @return number of events applied
+     */
+    int flush() {
+        flushLock.lock();
+        try {
+            int applied = 0;
+            Batch batch;
+            while (!(batch = chargeSessionEndJournal.nextBatch(batchSize)).isEmpty()) {
+                chargeSessionService.applyEndEvents(batch.getEndEvents());
+                chargeSessionEndJournal.markApplied(batch);
+                applied += batch.getEndEvents().size();
+            }
+            return applied;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            LockSupport.parkNanos(flushIntervalNanos);
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Charge session end events could not be applied, retrying in {} ms",
+                        TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos), e);
+            }
+        }
+    }
+}
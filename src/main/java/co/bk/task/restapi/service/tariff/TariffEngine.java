@@ -0,0 +1,194 @@
+package co.bk.task.restapi.service.tariff;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Calculates the cost of a charging session in fixed-point arithmetic:
+ *
+ *   Energy (kWh) = min(Power (kW) × Time (hours), energy the battery needs to fully charge)
+ *   Cost (Euros) = Energy (kWh) × Cost of Power (Euros per kWh) + minimum connection fee
+ *
+ * Units:
+ *   - power in milliwatts and time in milliseconds, so their product is energy in microjoules (3.6e12 µJ = 1 kWh)
+ *   - money in micro-cents (1e-8 Euro), the scale of ChargeSession.totalCost
+ *
+ * The maximum energy delivered is exact, the energy required to fully charge is rounded to the nearest microjoule and
+ * the cost is rounded once, HALF_EVEN, to the nearest micro-cent. The hot path works on primitives only and allocates
+ * nothing; {@link #roundToCents(long)} rounds the result to the cents the total_cost column stores and
+ * {@link #toEuros(long)} converts it for persistence.
+ *
+ * Results are identical to the BigDecimal calculation this engine replaced when that calculation is rounded HALF_EVEN to
+ * micro-cents (see TariffEngineTest), given charging power with at most 6 decimal places (the column holds 2) and a cost
+ * of power with at most 8 decimal places.
+ */
+@Component
+public class TariffEngine {
+
+    public static final int MONEY_SCALE = 8;
+
+    public static final long MICRO_CENTS_PER_EURO = 100_000_000L;
+
+    public static final long MICRO_CENTS_PER_CENT = 1_000_000L;
+
+    public static final long MINIMUM_CONNECTION_FEE_MICRO_CENTS = MICRO_CENTS_PER_EURO;
+
+    public static final long MICRO_JOULES_PER_KWH = 3_600_000_000_000L;
+
+    public static final int ENERGY_SCALE = 6;
+
+    private static final double MILLIWATTS_PER_KW = 1_000_000d;
+
+    private final long costOfPowerMicroCentsPerKwh;
+
+    // Cost of power and microjoules per kWh divided by their greatest common divisor. Keeps energy × cost within a long
+    // for common tariffs e.g. 0.25 Euro per kWh reduces to 1 / 144000.
+    private final long reducedCostOfPower;
+
+    private final long reducedMicroJoulesPerKwh;
+
+    public TariffEngine(@Value("${application.costOfPowerPerKwh}") Double costOfPowerPerKwh) {
+        double scaled = costOfPowerPerKwh * MICRO_CENTS_PER_EURO;
+        this.costOfPowerMicroCentsPerKwh = Math.round(scaled);
+
+        if (costOfPowerMicroCentsPerKwh < 0 || Math.abs(scaled - costOfPowerMicroCentsPerKwh) > 1e-6) {
+            throw new IllegalArgumentException("application.costOfPowerPerKwh must be positive with at most 8 decimal places: " + costOfPowerPerKwh);
+        }
+
+        long gcd = gcd(costOfPowerMicroCentsPerKwh, MICRO_JOULES_PER_KWH);
+        this.reducedCostOfPower = costOfPowerMicroCentsPerKwh / gcd;
+        this.reducedMicroJoulesPerKwh = MICRO_JOULES_PER_KWH / gcd;
+    }
+
+    /**
+     * Energy the customer is billed for.
+     *
+     * @param durationMillis length of the charging session
+     * @param chargingPowerKw charging power of the charge point
+     * @param batteryCapacityKwh capacity of the vehicle's battery
+     * @param batteryLevelPercentAtStart state of charge when the session started
+     * @return energy in microjoules. Zero when the battery was full at the start of the session.
+     */
+    public long energyConsumedMicroJoules(long durationMillis, double chargingPowerKw, double batteryCapacityKwh, double batteryLevelPercentAtStart) {
+
+        if (!(batteryLevelPercentAtStart < 100)) {
+            // Battery was full when the session started
+            return 0L;
+        }
+
+        // Energy (µJ) = Power (mW) × Time (ms)
+        long chargingPowerMilliWatts = Math.round(chargingPowerKw * MILLIWATTS_PER_KW);
+        long maxEnergyDeliveredDuringSession = saturatedMultiply(chargingPowerMilliWatts, durationMillis);
+
+        // Same double expression as the original calculation so both agree on the energy needed
+        double energyRequiredKwh = batteryCapacityKwh * (100 - batteryLevelPercentAtStart) / 100;
+        long energyRequiredByBatteryToFullyCharge = Math.round(energyRequiredKwh * MICRO_JOULES_PER_KWH);
+
+        // Customer billed only for the energy consumed
+        return Math.min(energyRequiredByBatteryToFullyCharge, maxEnergyDeliveredDuringSession);
+    }
+
+    /**
+     * Cost of a session including the minimum connection fee.
+     *
+     * @param energyConsumedMicroJoules energy billed, see {@link #energyConsumedMicroJoules(long, double, double, double)}
+     * @return cost in micro-cents
+     */
+    public long sessionCostMicroCents(long energyConsumedMicroJoules) {
+        return multiplyDivideHalfEven(energyConsumedMicroJoules, reducedCostOfPower, reducedMicroJoulesPerKwh)
+                + MINIMUM_CONNECTION_FEE_MICRO_CENTS;
+    }
+
+    public long getCostOfPowerMicroCentsPerKwh() {
+        return costOfPowerMicroCentsPerKwh;
+    }
+
+    /**
+     * Round a non-negative cost to whole cents, HALF_UP, as the total_cost column (NUMERIC(20, 2)) stores it.
+     *
+     * @return cost in micro-cents, a multiple of MICRO_CENTS_PER_CENT
+     */
+    public static long roundToCents(long microCents) {
+        return (microCents + MICRO_CENTS_PER_CENT / 2) / MICRO_CENTS_PER_CENT * MICRO_CENTS_PER_CENT;
+    }
+
+    /**
+     * Convert micro-cents to Euros at the scale of ChargeSession.totalCost.
+     */
+    public static BigDecimal toEuros(long microCents) {
+        return BigDecimal.valueOf(microCents, MONEY_SCALE);
+    }
+
+    /**
+     * Convert microjoules to kWh, rounded HALF_EVEN to ENERGY_SCALE decimal places (milliwatt-hours).
+     */
+    public static BigDecimal toKwh(long microJoules) {
+        return BigDecimal.valueOf(microJoules).divide(BigDecimal.valueOf(MICRO_JOULES_PER_KWH), ENERGY_SCALE, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * a × b / divisor rounded HALF_EVEN, with a 128 bit intermediate product.
+     *
+     * @param a any value
+     * @param b non-negative
+     * @param divisor positive and less than 2^62
+     */
+    static long multiplyDivideHalfEven(long a, long b, long divisor) {
+
+        boolean negative = a < 0;
+        long absA = negative ? -a : a;
+
+        long high = Math.unsignedMultiplyHigh(absA, b);
+        long low = absA * b;
+
+        long quotient;
+        long remainder;
+        if (high == 0 && low >= 0) {
+            quotient = low / divisor;
+            remainder = low % divisor;
+        } else {
+            if (Long.compareUnsigned(high, divisor) >= 0) {
+                throw new ArithmeticException("Cost exceeds the range of a long");
+            }
+            // Long division of the 128 bit product (high:low). The remainder stays below 2 × divisor < 2^63.
+            remainder = high;
+            quotient = 0;
+            for (int bit = 63; bit >= 0; bit--) {
+                remainder = (remainder << 1) | ((low >>> bit) & 1L);
+                quotient <<= 1;
+                if (remainder >= divisor) {
+                    remainder -= divisor;
+                    quotient |= 1L;
+                }
+            }
+        }
+
+        // HALF_EVEN: round up above half, and at exactly half only if that makes the quotient even
+        long twiceRemainder = remainder << 1;
+        if (twiceRemainder > divisor || (twiceRemainder == divisor && (quotient & 1L) == 1L)) {
+            quotient++;
+        }
+        return negative ? -quotient : quotient;
+    }
+
+    private static long saturatedMultiply(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        if (high != (low >> 63)) {
+            return ((a ^ b) < 0) ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+        return low;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a == 0 ? 1 : a;
+    }
+}
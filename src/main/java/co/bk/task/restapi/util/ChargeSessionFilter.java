@@ -0,0 +1,99 @@
+package co.bk.task.restapi.util;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+/**
+ * Optional filters of the charge session list of a vehicle. Every filter that is set narrows the result (they are
+ * combined with and); null means not filtered.
+ *
+ *  - startFrom, startTo: start time range in UTC epoch millis, from inclusive, to exclusive
+ *  - status: open (no end time) or closed sessions only
+ *  - chargePointId: sessions at one charge point only
+ *  - minCost, maxCost: total cost range in Euros, both inclusive. Open sessions have no cost and never match.
+ */
+public final class ChargeSessionFilter {
+
+    public static final ChargeSessionFilter NONE = new ChargeSessionFilter(null, null, null, null, null, null);
+
+    private final Long startFrom;
+
+    private final Long startTo;
+
+    private final Status status;
+
+    private final Long chargePointId;
+
+    private final BigDecimal minCost;
+
+    private final BigDecimal maxCost;
+
+    public ChargeSessionFilter(Long startFrom, Long startTo, Status status, Long chargePointId, BigDecimal minCost, BigDecimal maxCost) {
+        this.startFrom = startFrom;
+        this.startTo = startTo;
+        this.status = status;
+        this.chargePointId = chargePointId;
+        this.minCost = minCost;
+        this.maxCost = maxCost;
+    }
+
+    public Long getStartFrom() {
+        return startFrom;
+    }
+
+    public Long getStartTo() {
+        return startTo;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Long getChargePointId() {
+        return chargePointId;
+    }
+
+    public BigDecimal getMinCost() {
+        return minCost;
+    }
+
+    public BigDecimal getMaxCost() {
+        return maxCost;
+    }
+
+    /**
+     * Stable text form of the filter, part of the ETag of a page.
+     */
+    @Override
+    public String toString() {
+        return new StringJoiner(",")
+                .add(String.valueOf(startFrom))
+                .add(String.valueOf(startTo))
+                .add(String.valueOf(status))
+                .add(String.valueOf(chargePointId))
+                .add(minCost == null ? "null" : minCost.stripTrailingZeros().toPlainString())
+                .add(maxCost == null ? "null" : maxCost.stripTrailingZeros().toPlainString())
+                .toString();
+    }
+
+    public static enum Status {
+        OPEN("open"),
+        CLOSED("closed");
+
+        private String statusParam;
+
+        Status(String statusParam) {
+            this.statusParam = statusParam;
+        }
+
+        public String getStatusParam() {
+            return statusParam;
+        }
+
+        public static Optional<Status> identifyStatusParameter(String statusParamToIdentify) {
+            return Arrays.stream(values()).filter(it -> it.statusParam.equalsIgnoreCase(statusParamToIdentify)).findAny();
+        }
+    }
+}
@@ -4,6 +4,11 @@ import co.bk.task.restapi.service.dto.ChargeSessionDto;
 
 import java.util.Comparator;
 
+/**
+ * Reference ordering for the endTime sort: open sessions (no end time) come before ended sessions.
+ *
+ * Sorting itself happens in the database (see ChargeSessionListRepositoryCustomImpl), which applies the same null ordering.
+ */
 public class EndTimeComparator implements Comparator<ChargeSessionDto> {
 
     @Override
@@ -18,4 +23,4 @@ public class EndTimeComparator implements Comparator<ChargeSessionDto> {
         return Long.compare(dr1.getEndTime(), dr2.getEndTime());
     }
 
-}
\ No newline at end of file
+}
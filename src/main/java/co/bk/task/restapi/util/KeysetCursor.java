@@ -0,0 +1,95 @@
+package co.bk.task.restapi.util;
+
+import co.bk.task.restapi.service.dto.ChargeSessionDto;
+import co.bk.task.restapi.web.exceptionhandling.ApplicationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last charge session returned in a page of results (keyset pagination).
+ *
+ * The cursor holds the value of the sort column (null for an open session when sorting by endTime) and the session id,
+ * which breaks ties between sessions sharing the same sort value. It is handed to clients as an opaque URL safe token
+ * and is only valid for the sort order it was issued with.
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final SortParameterEnum sortedBy;
+
+    private final Long sortKey;
+
+    private final long id;
+
+    public KeysetCursor(SortParameterEnum sortedBy, Long sortKey, long id) {
+        this.sortedBy = sortedBy;
+        this.sortKey = sortKey;
+        this.id = id;
+    }
+
+    /**
+     * Cursor positioned after the given charge session.
+     */
+    public static KeysetCursor after(SortParameterEnum sortedBy, ChargeSessionDto last) {
+        Long sortKey = null;
+        switch (sortedBy) {
+            case START_TIME_ASC:
+            case START_TIME_DESC:
+                sortKey = last.getStartTime();
+                break;
+            case END_TIME_ASC:
+            case END_TIME_DESC:
+                sortKey = last.getEndTime();
+                break;
+        }
+        return new KeysetCursor(sortedBy, sortKey, last.getId());
+    }
+
+    public SortParameterEnum getSortedBy() {
+        return sortedBy;
+    }
+
+    public Long getSortKey() {
+        return sortKey;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Encode the cursor as e.g. base64("-endTime:1691877725004:22"). An open session encodes as base64("endTime::23").
+     */
+    public String encode() {
+        String raw = sortedBy.getSortParam() + SEPARATOR + (sortKey == null ? "" : sortKey) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor previously issued by {@link #encode()}.
+     *
+     * @param encoded opaque cursor supplied by the client
+     * @param sortedBy sort order of the current request
+     * @return decoded cursor
+     * @throws ApplicationException if the cursor is malformed or was issued for a different sort order
+     */
+    public static KeysetCursor decode(String encoded, SortParameterEnum sortedBy) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, -1);
+
+            if (parts.length != 3 || !sortedBy.getSortParam().equals(parts[0])) {
+                throw new ApplicationException(ApplicationException.ErrorCode.INVALID_PAGINATION_CURSOR);
+            }
+
+            Long sortKey = parts[1].isEmpty() ? null : Long.valueOf(parts[1]);
+            return new KeysetCursor(sortedBy, sortKey, Long.parseLong(parts[2]));
+
+        } catch (IllegalArgumentException e) {
+            // Covers invalid base64 and NumberFormatException
+            throw new ApplicationException(ApplicationException.ErrorCode.INVALID_PAGINATION_CURSOR);
+        }
+    }
+}
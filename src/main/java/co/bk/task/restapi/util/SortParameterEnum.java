@@ -17,6 +17,10 @@ public enum SortParameterEnum {
         this.sortParam = sortParam;
     }
 
+    public String getSortParam() {
+        return sortParam;
+    }
+
     public static Optional<SortParameterEnum> identifySortParameter(String sortParamToIdentify) {
         return Arrays.stream(values()).filter(it -> it.sortParam.equalsIgnoreCase(sortParamToIdentify)).findAny();
     }
@@ -0,0 +1,57 @@
+package co.bk.task.restapi.util;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Bucket sizes of the charge summary (see VehicleChargeRollup). Buckets are UTC calendar days and months, identified by
+ * the epoch millis of their first instant.
+ */
+public enum SummaryGranularityEnum {
+
+    DAY("day", DateTimeFormatter.ISO_LOCAL_DATE),
+    MONTH("month", DateTimeFormatter.ofPattern("uuuu-MM"));
+
+    private String granularityParam;
+
+    private DateTimeFormatter periodFormatter;
+
+    SummaryGranularityEnum(String granularityParam, DateTimeFormatter periodFormatter) {
+        this.granularityParam = granularityParam;
+        this.periodFormatter = periodFormatter;
+    }
+
+    public String getGranularityParam() {
+        return granularityParam;
+    }
+
+    /**
+     * Start (epoch millis) of the bucket containing the given UTC instant.
+     */
+    public long bucketStart(long epochMillis) {
+        return bucketStart(Instant.ofEpochMilli(epochMillis).atZone(ZoneOffset.UTC).toLocalDate());
+    }
+
+    /**
+     * Start (epoch millis) of the bucket containing the given UTC date.
+     */
+    public long bucketStart(LocalDate date) {
+        LocalDate firstDay = this == MONTH ? date.withDayOfMonth(1) : date;
+        return firstDay.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Human readable period of a bucket e.g. 2023-08-12 (day) or 2023-08 (month).
+     */
+    public String period(long bucketStart) {
+        return periodFormatter.format(Instant.ofEpochMilli(bucketStart).atZone(ZoneOffset.UTC));
+    }
+
+    public static Optional<SummaryGranularityEnum> identifyGranularityParameter(String granularityParamToIdentify) {
+        return Arrays.stream(values()).filter(it -> it.granularityParam.equalsIgnoreCase(granularityParamToIdentify)).findAny();
+    }
+}
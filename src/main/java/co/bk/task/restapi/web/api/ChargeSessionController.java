@@ -1,53 +1,188 @@
 package co.bk.task.restapi.web.api;
 
+import co.bk.task.restapi.config.ApplicationConfig;
+import co.bk.task.restapi.service.dto.ChargeSessionBatchResultDto;
+import co.bk.task.restapi.service.dto.ChargeSessionCreateDto;
 import co.bk.task.restapi.service.dto.ChargeSessionDto;
+import co.bk.task.restapi.service.dto.ChargeSessionPageDto;
+import co.bk.task.restapi.service.dto.ChargeSessionsVersionDto;
+import co.bk.task.restapi.util.ChargeSessionFilter;
+import co.bk.task.restapi.util.KeysetCursor;
 import co.bk.task.restapi.web.api.cmd.ChargeSessionSaveCmd;
 import co.bk.task.restapi.web.exceptionhandling.ApplicationException;
 import co.bk.task.restapi.util.SortParameterEnum;
+import co.bk.task.restapi.service.ChargeSessionExportService;
 import co.bk.task.restapi.service.ChargeSessionService;
+import com.google.common.hash.Hashing;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.function.Function;
 
 @Slf4j
 @RestController
 public class ChargeSessionController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // Representations of the GET and batch responses, JSON unless the client asks for a binary encoding
+    private static final List<MediaType> REPRESENTATIONS = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, ApplicationConfig.APPLICATION_SMILE);
+
+    private static final List<MediaType> EXPORT_REPRESENTATIONS = List.of(MediaType.APPLICATION_NDJSON, ApplicationConfig.APPLICATION_CBOR_SEQ, ApplicationConfig.APPLICATION_SMILE);
+
     @Autowired
     ChargeSessionService chargeSessionService;
 
+    @Autowired
+    ChargeSessionExportService chargeSessionExportService;
+
+    @Value("${application.pagination.defaultLimit}")
+    int defaultLimit;
+
+    @Value("${application.pagination.maxLimit}")
+    int maxLimit;
+
+    @Value("${application.batch.maxSize}")
+    int maxBatchSize;
+
     /**
-     * Get all charge detail records for a given vehicle and support sorting
-     *   curl -X GET --header "Content-type: application/json" --header "Accept: application/json" http://localhost:8080/charge-sessions?vehicleId=10&sort=endTime
+     * Get charge detail records for a given vehicle and support sorting and keyset (cursor) pagination
+     *   curl -X GET --header "Content-type: application/json" --header "Accept: application/json" http://localhost:8080/charge-sessions?vehicleId=10&sort=endTime&limit=2
+     *
+     * When more records exist the response carries the cursor of the next page in the X-Next-Cursor header and a
+     * Link header (rel="next") with the URL of the next page e.g.
+     *   curl -X GET --header "Content-type: application/json" --header "Accept: application/json" "http://localhost:8080/charge-sessions?vehicleId=10&sort=endTime&limit=2&after=ZW5kVGltZTo6MjM"
+     *
+     * Optional filters, combined with and: from and to (start time range in epoch millis, to exclusive), status=open|closed,
+     * chargePointId and minCost, maxCost (total cost range in Euros, inclusive) e.g.
+     *   curl -X GET --header "Accept: application/json" "http://localhost:8080/charge-sessions?vehicleId=10&status=closed&from=1691877725000&minCost=11"
+     *
+     * The response carries an ETag derived from the version stamp of the vehicle's history and the page requested. A poll
+     * with a matching If-None-Match header returns 304 after one aggregate query, without loading the page:
+     *   curl -i -X GET --header "Accept: application/json" --header 'If-None-Match: "5f0c6a3e2d1b4c87"' http://localhost:8080/charge-sessions?vehicleId=10
      *
+     * Machine clients may ask for the same payload as CBOR or Smile (Accept: application/cbor or application/x-jackson-smile).
+     * Each representation has its own ETag.
      */
-    @ResponseStatus(value = HttpStatus.OK)
-    @RequestMapping(value = "/charge-sessions", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<Object> getAllForVehicle(@RequestParam(required = true) Long vehicleId, @RequestParam(required = false) String sort) {
+    @RequestMapping(value = "/charge-sessions", method = RequestMethod.GET,
+            produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApplicationConfig.APPLICATION_SMILE_VALUE })
+    public ResponseEntity<Object> getAllForVehicle(WebRequest webRequest,
+                                                   @RequestParam(required = true) Long vehicleId,
+                                                   @RequestParam(required = false) String sort,
+                                                   @RequestParam(required = false) String after,
+                                                   @RequestParam(required = false) Integer limit,
+                                                   @RequestParam(required = false) String from,
+                                                   @RequestParam(required = false) String to,
+                                                   @RequestParam(required = false) String status,
+                                                   @RequestParam(required = false) String chargePointId,
+                                                   @RequestParam(required = false) String minCost,
+                                                   @RequestParam(required = false) String maxCost) {
 
         SortParameterEnum sortedBy = validateSortParameter(sort);
+        ChargeSessionFilter filter = validateFilterParameters(from, to, status, chargePointId, minCost, maxCost);
+        KeysetCursor afterCursor = (after == null || after.isEmpty()) ? null : KeysetCursor.decode(after, sortedBy);
+        int pageLimit = validateLimitParameter(limit);
+
+        // The stamp is read before the page so the ETag is never newer than the body it is sent with
+        ChargeSessionsVersionDto version = chargeSessionService.getChargeSessionsVersionForVehicle(vehicleId);
+        String eTag = eTag("charge-sessions", vehicleId, version.getSessionCount(), version.getVersionSum(), version.getLastCreated(),
+                version.getLastUpdated(), filter, sortedBy, after, pageLimit, representation(webRequest, REPRESENTATIONS));
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
+        ChargeSessionPageDto page = chargeSessionService.getChargeSessionsForVehicleSorted(vehicleId, filter, sortedBy, afterCursor, pageLimit);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(eTag);
+        headers.setCacheControl(CacheControl.noCache());
+        headers.setVary(List.of(HttpHeaders.ACCEPT));
+        if (page.getNextCursor() != null) {
+            String nextPageUrl = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", page.getNextCursor())
+                    .toUriString();
+            headers.set(NEXT_CURSOR_HEADER, page.getNextCursor());
+            headers.set(HttpHeaders.LINK, "<" + nextPageUrl + ">; rel=\"next\"");
+        }
+        return new ResponseEntity<Object>(page.getChargeSessions(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Export the full charge session history of a vehicle as newline delimited JSON, one charge session per line, oldest first.
+     * The response is streamed so the size of the history does not affect memory use:
+     *   curl -X GET --header "Accept: application/x-ndjson" http://localhost:8080/charge-sessions/export?vehicleId=10
+     *
+     * Machine clients may ask for a sequence of CBOR items (Accept: application/cbor-seq) or of Smile values
+     * (Accept: application/x-jackson-smile), one charge session each.
+     */
+    @RequestMapping(value = "/charge-sessions/export", method = RequestMethod.GET,
+            produces = { MediaType.APPLICATION_NDJSON_VALUE, ApplicationConfig.APPLICATION_CBOR_SEQ_VALUE, ApplicationConfig.APPLICATION_SMILE_VALUE })
+    public ResponseEntity<StreamingResponseBody> exportForVehicle(WebRequest webRequest, @RequestParam(required = true) Long vehicleId) {
+
+        chargeSessionExportService.checkVehicleExists(vehicleId);
 
-        List<ChargeSessionDto> detailRecordList = chargeSessionService.getChargeSessionsForVehicleSorted(vehicleId, sortedBy);
-        return new ResponseEntity<Object>(detailRecordList, HttpStatus.OK);
+        MediaType mediaType = representation(webRequest, EXPORT_REPRESENTATIONS);
+        StreamingResponseBody body = outputStream -> chargeSessionExportService.exportChargeSessionsForVehicle(vehicleId, mediaType, outputStream);
+        return ResponseEntity.ok().contentType(mediaType).varyBy(HttpHeaders.ACCEPT).body(body);
+    }
+
+    /**
+     * Live charge session events of a vehicle or of a charge point (exactly one of vehicleId and chargePointId) as
+     * Server-Sent Events: "created" and "ended" events whose data is the charge session, e.g.
+     *   curl -N --header "Accept: text/event-stream" http://localhost:8080/charge-sessions/stream?vehicleId=10
+     *
+     * Replaces polling GET /charge-sessions?vehicleId= for dashboards. A client that falls too far behind loses its oldest
+     * events or is disconnected (application.sse.overflow); it should then re-read the list and subscribe again.
+     */
+    @RequestMapping(value = "/charge-sessions/stream", method = RequestMethod.GET, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@RequestParam(required = false) Long vehicleId,
+                                   @RequestParam(required = false) Long chargePointId) {
+
+        return chargeSessionService.subscribeToChargeSessionEvents(vehicleId, chargePointId);
     }
 
     /**
      * Get specific charge-session:
      *   curl -X GET --header "Content-type: application/json" --header "Accept: application/json" http://localhost:8080/charge-sessions/20
+     *
+     * The ETag is derived from the session's optimistic lock version and, in write-behind mode, its pending end; a
+     * matching If-None-Match returns 304 after a primary key lookup of that version. Also served as CBOR or Smile, each
+     * with its own ETag.
      */
-    @ResponseStatus(value = HttpStatus.OK)
-    @RequestMapping(value = "/charge-sessions/{id}", method = RequestMethod.GET, produces = "application/json")
-    public ResponseEntity<Object> getChargeDetailRecord(HttpServletResponse response, @PathVariable("id") final Long id) {
+    @RequestMapping(value = "/charge-sessions/{id}", method = RequestMethod.GET,
+            produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApplicationConfig.APPLICATION_SMILE_VALUE })
+    public ResponseEntity<Object> getChargeDetailRecord(WebRequest webRequest, @PathVariable("id") final Long id) {
+
+        // Unknown ids fall through to the lookup below, which returns 404
+        String eTag = chargeSessionService.getChargeSessionVersion(id)
+                .map(version -> eTag("charge-session", id, version, chargeSessionService.getPendingEndTime(id),
+                        representation(webRequest, REPRESENTATIONS)))
+                .orElse(null);
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
 
         ChargeSessionDto detailRecord = chargeSessionService.getChargeSessionById(id);
-        return new ResponseEntity<Object>(detailRecord, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT).body(detailRecord);
     }
 
 
@@ -86,6 +221,78 @@ public class ChargeSessionController {
         chargeSessionService.updateChargeSession(id);
     }
 
+    /**
+     * Create charge sessions in bulk. Returns one result per item in request order (201 and the new id, or the error
+     * status and application code of the item):
+     *   curl -X POST --header "Content-type: application/json" --header "Accept: application/json"  --data '[{"vehicleId":10, "chargePointId":1}, {"vehicleId":11, "chargePointId":2}]' http://localhost:8080/charge-sessions/batch
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @RequestMapping(value = "/charge-sessions/batch", method = RequestMethod.POST,
+            produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApplicationConfig.APPLICATION_SMILE_VALUE })
+    public ResponseEntity<Object> saveBatch(@RequestBody List<ChargeSessionSaveCmd> chargeSessionSaveCmds) {
+
+        validateBatchSize(chargeSessionSaveCmds);
+
+        // A null item fails on its own as incomplete, like an item without ids
+        List<ChargeSessionCreateDto> chargeSessionCreateDtos = chargeSessionSaveCmds.stream()
+                .map(chargeSessionSaveCmd -> chargeSessionSaveCmd == null
+                        ? new ChargeSessionCreateDto(null, null)
+                        : new ChargeSessionCreateDto(chargeSessionSaveCmd.getVehicleId(), chargeSessionSaveCmd.getChargePointId()))
+                .toList();
+        List<ChargeSessionBatchResultDto> results = chargeSessionService.createChargeSessions(chargeSessionCreateDtos);
+        return new ResponseEntity<Object>(results, HttpStatus.OK);
+    }
+
+    /**
+     * End charge sessions in bulk. Returns one result per id in request order (204, or 404 when the session does not exist):
+     *   curl -X PUT --header "Content-type: application/json" --header "Accept: application/json"  --data '[23, 24]' http://localhost:8080/charge-sessions/batch/end
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @RequestMapping(value = "/charge-sessions/batch/end", method = RequestMethod.PUT,
+            produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, ApplicationConfig.APPLICATION_SMILE_VALUE })
+    public ResponseEntity<Object> updateBatch(@RequestBody List<Long> ids) {
+
+        validateBatchSize(ids);
+
+        List<ChargeSessionBatchResultDto> results = chargeSessionService.endChargeSessions(ids);
+        return new ResponseEntity<Object>(results, HttpStatus.OK);
+    }
+
+    /*
+     * Strong ETag (quoted 64 bit fingerprint) of a resource version. The parts include everything that selects the
+     * representation besides the version stamp, e.g. sort, cursor and limit of a page.
+     */
+    private static String eTag(Object... parts) {
+
+        StringJoiner key = new StringJoiner("|");
+        for (Object part : parts) {
+            key.add(String.valueOf(part));
+        }
+        return "\"" + Hashing.farmHashFingerprint64().hashString(key.toString(), StandardCharsets.UTF_8) + "\"";
+    }
+
+    /*
+     * The representation the client prefers (Accept header) among those of the endpoint, the first when it accepts any.
+     * Matches the choice of the message converters, so it can be part of the ETag before the body is written.
+     */
+    private static MediaType representation(WebRequest webRequest, List<MediaType> representations) {
+
+        String accept = webRequest.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isEmpty()) {
+            return representations.get(0);
+        }
+        List<MediaType> acceptedMediaTypes = MediaType.parseMediaTypes(accept);
+        MimeTypeUtils.sortBySpecificity(acceptedMediaTypes);
+        for (MediaType acceptedMediaType : acceptedMediaTypes) {
+            for (MediaType representation : representations) {
+                if (acceptedMediaType.isCompatibleWith(representation)) {
+                    return representation;
+                }
+            }
+        }
+        return representations.get(0);
+    }
+
     /*
      * Allowed params "startTime, -startTime, endTime, -endTime". Any other param return a 400 bad request according to JSON spec.
      *
@@ -105,5 +312,75 @@ public class ChargeSessionController {
         return result.get();
     }
 
+    /*
+     * Filters of the list endpoint. Parsed here rather than bound as typed request parameters so a malformed value is a 400
+     * with its own application code.
+     */
+    private ChargeSessionFilter validateFilterParameters(String from, String to, String status, String chargePointId,
+                                                         String minCost, String maxCost) {
+
+        Long startFrom = parseFilterParameter("from", from, Long::valueOf);
+        Long startTo = parseFilterParameter("to", to, Long::valueOf);
+        ChargeSessionFilter.Status sessionStatus = parseFilterParameter("status", status,
+                value -> ChargeSessionFilter.Status.identifyStatusParameter(value).orElseThrow());
+        Long chargePoint = parseFilterParameter("chargePointId", chargePointId, Long::valueOf);
+        BigDecimal costFrom = parseFilterParameter("minCost", minCost, BigDecimal::new);
+        BigDecimal costTo = parseFilterParameter("maxCost", maxCost, BigDecimal::new);
+
+        if (startFrom != null && startTo != null && startFrom >= startTo) {
+            throw new ApplicationException(ApplicationException.ErrorCode.INVALID_FILTER_PARAMETER, new String[] { "from=" + from });
+        }
+        if (costFrom != null && (costFrom.signum() < 0 || (costTo != null && costFrom.compareTo(costTo) > 0))) {
+            throw new ApplicationException(ApplicationException.ErrorCode.INVALID_FILTER_PARAMETER, new String[] { "minCost=" + minCost });
+        }
+        if (costTo != null && costTo.signum() < 0) {
+            throw new ApplicationException(ApplicationException.ErrorCode.INVALID_FILTER_PARAMETER, new String[] { "maxCost=" + maxCost });
+        }
+
+        if (startFrom == null && startTo == null && sessionStatus == null && chargePoint == null && costFrom == null && costTo == null) {
+            return ChargeSessionFilter.NONE;
+        }
+        return new ChargeSessionFilter(startFrom, startTo, sessionStatus, chargePoint, costFrom, costTo);
+    }
+
+    private static <T> T parseFilterParameter(String name, String value, Function<String, T> parser) {
+
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (RuntimeException e) {
+            throw new ApplicationException(ApplicationException.ErrorCode.INVALID_FILTER_PARAMETER, new String[] { name + "=" + value });
+        }
+    }
+
+    /*
+     * A batch must contain between 1 and application.batch.maxSize items.
+     */
+    private void validateBatchSize(List<?> items) {
+
+        if (items == null || items.isEmpty() || items.size() > maxBatchSize) {
+            throw new ApplicationException(ApplicationException.ErrorCode.INVALID_BATCH_SIZE,
+                    new String[] { String.valueOf(items == null ? 0 : items.size()), String.valueOf(maxBatchSize) });
+        }
+    }
+
+    /*
+     * Page size defaults to application.pagination.defaultLimit and may not exceed application.pagination.maxLimit.
+     */
+    private int validateLimitParameter(Integer limit) {
+
+        if (limit == null) {
+            return defaultLimit;
+        }
+
+        if (limit < 1 || limit > maxLimit) {
+            throw new ApplicationException(ApplicationException.ErrorCode.INVALID_PAGINATION_LIMIT,
+                    new String[] { String.valueOf(limit), String.valueOf(maxLimit) });
+        }
+        return limit;
+    }
+
 
 }
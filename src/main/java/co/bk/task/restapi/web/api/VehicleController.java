@@ -0,0 +1,67 @@
+package co.bk.task.restapi.web.api;
+
+import co.bk.task.restapi.service.VehicleChargeSummaryService;
+import co.bk.task.restapi.service.dto.ChargeSummaryDto;
+import co.bk.task.restapi.util.SummaryGranularityEnum;
+import co.bk.task.restapi.web.exceptionhandling.ApplicationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+@Slf4j
+@RestController
+public class VehicleController {
+
+    @Autowired
+    VehicleChargeSummaryService vehicleChargeSummaryService;
+
+    /**
+     * Total spend and energy of a vehicle per UTC day or month, over the sessions that ended within [from, to] (ISO dates,
+     * inclusive). from defaults to the start of the history and to defaults to today:
+     *   curl -X GET --header "Accept: application/json" "http://localhost:8080/vehicles/10/charge-summary?granularity=month&from=2023-01-01&to=2023-12-31"
+     */
+    @RequestMapping(value = "/vehicles/{id}/charge-summary", method = RequestMethod.GET, produces = "application/json")
+    public ResponseEntity<Object> getChargeSummary(@PathVariable("id") final Long id,
+                                                   @RequestParam(required = false) String granularity,
+                                                   @RequestParam(required = false) String from,
+                                                   @RequestParam(required = false) String to) {
+
+        SummaryGranularityEnum summaryGranularity = validateGranularityParameter(granularity);
+        LocalDate fromDate = from == null || from.isEmpty() ? LocalDate.EPOCH : validateDateParameter(from);
+        LocalDate toDate = to == null || to.isEmpty() ? LocalDate.now(ZoneOffset.UTC) : validateDateParameter(to);
+        if (fromDate.isAfter(toDate)) {
+            throw new ApplicationException(ApplicationException.ErrorCode.INVALID_SUMMARY_PARAMETER, new String[] { "from=" + from });
+        }
+
+        ChargeSummaryDto chargeSummary = vehicleChargeSummaryService.getChargeSummary(id, summaryGranularity, fromDate, toDate);
+        return new ResponseEntity<Object>(chargeSummary, HttpStatus.OK);
+    }
+
+    /*
+     * Allowed params "day, month". Defaults to day.
+     */
+    private SummaryGranularityEnum validateGranularityParameter(String granularity) {
+
+        if (granularity == null || granularity.isEmpty()) {
+            return SummaryGranularityEnum.DAY;
+        }
+
+        return SummaryGranularityEnum.identifyGranularityParameter(granularity).orElseThrow(
+                () -> new ApplicationException(ApplicationException.ErrorCode.INVALID_SUMMARY_PARAMETER, new String[] { "granularity=" + granularity }));
+    }
+
+    private LocalDate validateDateParameter(String date) {
+
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new ApplicationException(ApplicationException.ErrorCode.INVALID_SUMMARY_PARAMETER, new String[] { date });
+        }
+    }
+}
@@ -1,18 +1,43 @@
 package co.bk.task.restapi.web.exceptionhandling;
 
+import org.zalando.problem.Status;
+
 /**
  * Service exception.
+ *
+ * Client errors (4xx) are expected business outcomes, e.g. a 404 for an unknown vehicle, so they are created without a
+ * stack trace and their message is only formatted when it is read. Server errors and exceptions with a cause keep
+ * their stack trace.
  */
 public class ApplicationException extends RuntimeException {
 
     private transient ErrorCode errorCode;
 
+    private final transient Object[] paramsForMessage;
+
+    private String message;
+
     public ApplicationException(ErrorCode errorCode) {
-        this(errorCode, errorCode.getMessage());
+        this(errorCode, (String[]) null);
     }
 
     public ApplicationException(ErrorCode errorCode, String[] paramsForMessage) {
-        this(errorCode, String.format(errorCode.getMessage(), paramsForMessage));
+        super(null, null, false, !errorCode.isClientError());
+        this.errorCode = errorCode;
+        this.paramsForMessage = paramsForMessage;
+    }
+
+    /**
+     * Construct exception with parameters for the message and underlining exception.
+     *
+     * @param errorCode        errorCode.
+     * @param paramsForMessage parameters of the message of the error code.
+     * @param cause            - {@link Throwable} underlining exception.
+     */
+    public ApplicationException(ErrorCode errorCode, String[] paramsForMessage, Throwable cause) {
+        super(null, cause);
+        this.errorCode = errorCode;
+        this.paramsForMessage = paramsForMessage;
     }
 
     /**
@@ -24,6 +49,8 @@ public class ApplicationException extends RuntimeException {
     public ApplicationException(ErrorCode errorCode, Throwable cause) {
         super(cause);
         this.errorCode = errorCode;
+        this.paramsForMessage = null;
+        this.message = super.getMessage();
     }
 
     /**
@@ -35,6 +62,22 @@ public class ApplicationException extends RuntimeException {
     public ApplicationException(ErrorCode errorCode, String message) {
         super(message);
         this.errorCode = errorCode;
+        this.paramsForMessage = null;
+        this.message = message;
+    }
+
+    /**
+     * The message of the error code (status code and detail) with the parameters of this exception, e.g.
+     * "404 Vehicle Record with ID 7 not found."
+     */
+    @Override
+    public String getMessage() {
+        String formatted = message;
+        if (formatted == null) {
+            formatted = paramsForMessage == null ? errorCode.getMessage() : String.format(errorCode.getMessage(), paramsForMessage);
+            message = formatted;
+        }
+        return formatted;
     }
 
     public String getErrorCode() {
@@ -63,35 +106,83 @@ public class ApplicationException extends RuntimeException {
     }
 
     /**
-     * Error Code enum.
+     * Return the HTTP status code of the error code e.g. 404.
+     *
+     * @return HTTP status code
      */
-    public enum ErrorCode {
+    public int getHttpStatusCode() {
+        return errorCode.getStatus().getStatusCode();
+    }
 
-        SAVE_SESSION_INCOMPLETE("RESTAPI-0001", "400 Charge Session could not be saved due to incomplete data."),
-        RECORD_NOT_FOUND_FOR_VEHICLE("RESTAPI-0002", "404 Vehicle Record with ID %s not found."),
-        RECORD_NOT_FOUND_FOR_CHARGE_POINT("RESTAPI-0003", "404 Charge Point with ID %s not found."),
-        INVALID_SORT_PARAMETER("RESTAPI-0004", "400 Invalid sort parameter supplied. Only startTime, -startTime, endTime and -endTime supported."),
-        RECORD_NOT_FOUND_FOR_CHARGE_SESSION("RESTAPI-0005", "404 Charge Session with id %s not found.");
+    /**
+     * Return the message without the HTTP status code.
+     *
+     * @return client-friendly description of the problem
+     */
+    public String getDetail() {
+        String statusPrefix = errorCode.getStatus().getStatusCode() + " ";
+        String formatted = getMessage();
+        return formatted != null && formatted.startsWith(statusPrefix) ? formatted.substring(statusPrefix.length()) : formatted;
+    }
 
-        private String applicationCode;
-        private String message = "No description provided";
+    /**
+     * True when the detail is the constant detail of the error code (no parameters, no custom message).
+     */
+    public boolean hasConstantDetail() {
+        return paramsForMessage == null && (message == null || message.equals(errorCode.getMessage())) && getCause() == null;
+    }
 
-        private ErrorCode() {
-        }
+    /**
+     * Error Code enum.
+     */
+    public enum ErrorCode {
 
-        private ErrorCode(String applicationCode, String message) {
+        SAVE_SESSION_INCOMPLETE("RESTAPI-0001", Status.BAD_REQUEST, "Charge Session could not be saved due to incomplete data."),
+        RECORD_NOT_FOUND_FOR_VEHICLE("RESTAPI-0002", Status.NOT_FOUND, "Vehicle Record with ID %s not found."),
+        RECORD_NOT_FOUND_FOR_CHARGE_POINT("RESTAPI-0003", Status.NOT_FOUND, "Charge Point with ID %s not found."),
+        INVALID_SORT_PARAMETER("RESTAPI-0004", Status.BAD_REQUEST, "Invalid sort parameter supplied. Only startTime, -startTime, endTime and -endTime supported."),
+        RECORD_NOT_FOUND_FOR_CHARGE_SESSION("RESTAPI-0005", Status.NOT_FOUND, "Charge Session with id %s not found."),
+        INVALID_PAGINATION_CURSOR("RESTAPI-0006", Status.BAD_REQUEST, "Invalid pagination cursor supplied. A cursor is only valid for the sort order it was issued with."),
+        INVALID_PAGINATION_LIMIT("RESTAPI-0007", Status.BAD_REQUEST, "Invalid limit %s supplied. Limit must be between 1 and %s."),
+        INVALID_BATCH_SIZE("RESTAPI-0008", Status.BAD_REQUEST, "Batch of %s items supplied. A batch must contain between 1 and %s items."),
+        INVALID_SUMMARY_PARAMETER("RESTAPI-0009", Status.BAD_REQUEST, "Invalid charge summary parameter %s supplied. Granularity must be day or month, from and to ISO dates (yyyy-MM-dd) with from not after to."),
+        INVALID_FILTER_PARAMETER("RESTAPI-0010", Status.BAD_REQUEST, "Invalid filter parameter %s supplied. from and to are epoch millis with from before to, status is open or closed, chargePointId an id and minCost, maxCost non-negative amounts with minCost not above maxCost."),
+        CONCURRENT_CHARGE_SESSION_CHANGE("RESTAPI-0011", Status.CONFLICT, "Charge sessions of vehicle %s are being changed by another request. Retry the request."),
+        CHARGE_SESSION_UPDATE_CONFLICT("RESTAPI-0012", Status.CONFLICT, "Charge session was changed by another request on each of %s attempts. Retry the request."),
+        INVALID_STREAM_PARAMETER("RESTAPI-0013", Status.BAD_REQUEST, "Invalid stream parameters supplied. Exactly one of vehicleId and chargePointId is required.");
+
+        private final String applicationCode;
+        private final Status status;
+        private final String detail;
+        // Status code and detail, e.g. "404 Vehicle Record with ID %s not found."
+        private final String message;
+
+        private ErrorCode(String applicationCode, Status status, String detail) {
             this.applicationCode = applicationCode;
-            this.message = message;
+            this.status = status;
+            this.detail = detail;
+            this.message = status.getStatusCode() + " " + detail;
         }
 
         public String getApplicationCode() {
             return applicationCode;
         }
 
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+
         public String getMessage() {
             return message;
         }
 
+        public boolean isClientError() {
+            return status.getStatusCode() / 100 == 4;
+        }
+
     }
 }
-
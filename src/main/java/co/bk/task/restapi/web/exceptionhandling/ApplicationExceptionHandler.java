@@ -1,18 +1,18 @@
 package co.bk.task.restapi.web.exceptionhandling;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
-import org.zalando.problem.*;
+import org.zalando.problem.Problem;
 import org.zalando.problem.Status;
 
-import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 /**
  * Controller advice to translate the server side exceptions to client-friendly json structures.
@@ -24,48 +24,69 @@ import java.util.stream.Collectors;
  *      application_code: "custom code that uniquely identifies the exception case"
  *  }
  *
+ * The status comes from the ErrorCode. The problem of each error code (title, status, application_code and, for codes
+ * without parameters, the detail), its response headers and its error counter are built once, so an expected error,
+ * e.g. a 404 for an unknown vehicle, costs about as much as a success response.
  */
 @ControllerAdvice
 public class ApplicationExceptionHandler {
 
-    static final Map<String, Status> VALID_HTTP_STATUS_CODES =
-            Arrays.stream(Status.values()).collect(Collectors.toMap(item -> String.valueOf(item.getStatusCode()), Function.identity() ));
+    static final String APPLICATION_ERRORS = "application.errors";
 
-    @ExceptionHandler(RuntimeException.class)
-    public ResponseEntity<Problem> handleRuntimeException(RuntimeException ex) {
+    static final String APPLICATION_CODE_NOT_DEFINED = "APPLICATION-CODE-NOT-DEFINED";
+
+    private static final HttpHeaders PROBLEM_HEADERS = HttpHeaders.readOnlyHttpHeaders(problemHeaders());
+
+    private final Map<ApplicationException.ErrorCode, ApplicationProblem> problems = new EnumMap<>(ApplicationException.ErrorCode.class);
+
+    private final Map<ApplicationException.ErrorCode, Counter> errorCounters = new EnumMap<>(ApplicationException.ErrorCode.class);
+
+    private final Counter undefinedErrorCounter;
+
+    public ApplicationExceptionHandler(MeterRegistry meterRegistry) {
 
-        // Defaults
-        Status status = Status.INTERNAL_SERVER_ERROR;
-        String message = ex.getMessage();
-        String applicationCode = "APPLICATION-CODE-NOT-DEFINED";
+        // Register a counter for every error code up front so each series exists (at zero) before its first error
+        for (ApplicationException.ErrorCode errorCode : ApplicationException.ErrorCode.values()) {
+            errorCounters.put(errorCode, errorCounter(meterRegistry, errorCode.getApplicationCode(), errorCode.getStatus()));
+            problems.put(errorCode, new ApplicationProblem(errorCode.getStatus(), errorCode.getDetail(), errorCode.getApplicationCode()));
+        }
+        undefinedErrorCounter = errorCounter(meterRegistry, APPLICATION_CODE_NOT_DEFINED, Status.INTERNAL_SERVER_ERROR);
+    }
 
-        if (ex instanceof ApplicationException) {
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<Problem> handleRuntimeException(RuntimeException ex) {
 
-            ApplicationException aex = (ApplicationException) ex;
+        ApplicationException.ErrorCode errorCode = ex instanceof ApplicationException aex ? aex.getCode() : null;
+        if (errorCode == null) {
+            undefinedErrorCounter.increment();
+            return new ResponseEntity<>(new ApplicationProblem(Status.INTERNAL_SERVER_ERROR, ex.getMessage(), APPLICATION_CODE_NOT_DEFINED),
+                    PROBLEM_HEADERS, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
 
-            if (aex.getMessage() != null && aex.getMessage().length() >= 3) {
+        ApplicationException aex = (ApplicationException) ex;
+        errorCounters.get(errorCode).increment();
 
-                final String codeFromMessage = aex.getMessage().substring(0,3);
-                Status statusFromMessage = VALID_HTTP_STATUS_CODES.get(codeFromMessage);
-                if (statusFromMessage != null) {
-                    status = statusFromMessage;
-                    message = aex.getMessage().substring(4);
-                    applicationCode = aex.getApplicationCode();
-                }
-            }
+        ApplicationProblem problem = problems.get(errorCode);
+        if (!aex.hasConstantDetail()) {
+            problem = problem.withDetail(aex.getDetail());
         }
+        return new ResponseEntity<>(problem, PROBLEM_HEADERS, errorCode.getStatus().getStatusCode());
+    }
 
-        return ResponseEntity
-                .status(HttpStatus.valueOf(status.getStatusCode()))
-                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_UTF8.toString())
-                .body(
-                        Problem.builder()
-                                .withTitle(status.getReasonPhrase())
-                                .withStatus(status)
-                                .withDetail(message)
-                                .with("application_code", applicationCode)
-                                .build()
-                );
+    private static HttpHeaders problemHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_UTF8.toString());
+        return headers;
     }
 
+    /**
+     * Errors returned to clients by application code and HTTP status e.g. application_errors_total{application_code="RESTAPI-0002",status="404"}
+     */
+    private static Counter errorCounter(MeterRegistry meterRegistry, String applicationCode, Status status) {
+        return Counter.builder(APPLICATION_ERRORS)
+                .description("Errors returned to clients")
+                .tag("application_code", applicationCode)
+                .tag("status", String.valueOf(status.getStatusCode()))
+                .register(meterRegistry);
+    }
 }
@@ -0,0 +1,60 @@
+package co.bk.task.restapi.web.exceptionhandling;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.zalando.problem.Problem;
+import org.zalando.problem.StatusType;
+
+import java.util.Map;
+
+/**
+ * Immutable problem body of an error response, serialized like the problems of Problem.builder() (title, status,
+ * detail and application_code) but without capturing a stack trace, which the builder's ThrowableProblem does.
+ */
+@JsonPropertyOrder({ "type", "title", "status", "detail", "instance" })
+final class ApplicationProblem implements Problem {
+
+    static final String APPLICATION_CODE = "application_code";
+
+    private final StatusType status;
+
+    private final String detail;
+
+    private final Map<String, Object> parameters;
+
+    ApplicationProblem(StatusType status, String detail, String applicationCode) {
+        this(status, detail, Map.of(APPLICATION_CODE, applicationCode));
+    }
+
+    /**
+     * Same status and application code, other detail: shares the parameters of a cached problem.
+     */
+    ApplicationProblem withDetail(String detail) {
+        return new ApplicationProblem(status, detail, parameters);
+    }
+
+    private ApplicationProblem(StatusType status, String detail, Map<String, Object> parameters) {
+        this.status = status;
+        this.detail = detail;
+        this.parameters = parameters;
+    }
+
+    @Override
+    public String getTitle() {
+        return status.getReasonPhrase();
+    }
+
+    @Override
+    public StatusType getStatus() {
+        return status;
+    }
+
+    @Override
+    public String getDetail() {
+        return detail;
+    }
+
+    @Override
+    public Map<String, Object> getParameters() {
+        return parameters;
+    }
+}
@@ -0,0 +1,177 @@
+package co.bk.task.restapi.web.warmup;
+
+import co.bk.task.restapi.repository.ChargeSessionListRepository;
+import co.bk.task.restapi.service.dto.ChargeSessionDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms up the JIT compiler before the application reports ready, so a new instance enters the load balancer with the
+ * request path already compiled instead of serving its first few thousand requests in the interpreter.
+ *
+ * Runs once the context has started and the web server is listening, but before readiness changes to ACCEPTING_TRAFFIC
+ * (/actuator/health/readiness reports OUT_OF_SERVICE until it completes). Sends application.warmUp.iterations read-only
+ * requests over HTTP from application.warmUp.threads threads: GET /charge-sessions/{id}, GET /charge-sessions (each
+ * sort) and GET /charge-sessions/export for the most recent charge sessions, through ChargeSessionController,
+ * ChargeSessionService and ChargeSessionExportService, the DTO projection queries and the JSON and NDJSON writers of
+ * ChargeSessionDto. Nothing is written. The warm-up stops at application.warmUp.timeout and failed requests are logged,
+ * neither prevents the application from becoming ready.
+ *
+ * The duration is logged and published as application.warmup. The warm-up requests are counted in http.server.requests.
+ */
+@Component
+@Slf4j
+public class WarmUpRunner implements ApplicationRunner {
+
+    public static final String WARMUP = "application.warmup";
+
+    // Sessions whose requests are cycled through
+    private static final int SAMPLE_SIZE = 20;
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final String[] SORTS = { "startTime", "-startTime", "endTime", "-endTime" };
+
+    private final ChargeSessionListRepository chargeSessionListRepository;
+
+    private final ApplicationContext applicationContext;
+
+    private final Timer warmUpTimer;
+
+    private final boolean enabled;
+
+    private final int iterations;
+
+    private final int threads;
+
+    private final Duration timeout;
+
+    public WarmUpRunner(ChargeSessionListRepository chargeSessionListRepository,
+                        ApplicationContext applicationContext,
+                        MeterRegistry meterRegistry,
+                        @Value("${application.warmUp.enabled}") boolean enabled,
+                        @Value("${application.warmUp.iterations}") int iterations,
+                        @Value("${application.warmUp.threads}") int threads,
+                        @Value("${application.warmUp.timeout}") Duration timeout) {
+        this.chargeSessionListRepository = chargeSessionListRepository;
+        this.applicationContext = applicationContext;
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.threads = threads;
+        this.timeout = timeout;
+        this.warmUpTimer = Timer.builder(WARMUP)
+                .description("Duration of the warm-up run before the application reports ready")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        if (!(applicationContext instanceof WebServerApplicationContext webServerApplicationContext)) {
+            log.info("Warm-up skipped, no web server");
+            return;
+        }
+
+        List<URI> uris = uris(webServerApplicationContext.getWebServer().getPort());
+        if (uris.isEmpty()) {
+            log.info("Warm-up skipped, no charge sessions to read");
+            return;
+        }
+
+        AtomicInteger requests = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+
+        try (HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+             ExecutorService executor = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("warm-up-", 0).factory())) {
+            for (int thread = 0; thread < threads; thread++) {
+                int first = thread;
+                executor.execute(() -> {
+                    for (int i = first; i < iterations && System.nanoTime() < deadline && !Thread.currentThread().isInterrupted(); i += threads) {
+                        if (!send(httpClient, uris.get(i % uris.size()))) {
+                            errors.incrementAndGet();
+                        }
+                        requests.incrementAndGet();
+                    }
+                });
+            }
+            executor.shutdown();
+            if (!executor.awaitTermination(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                executor.shutdownNow();
+            }
+        }
+
+        long durationNanos = System.nanoTime() - start;
+        warmUpTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        if (requests.get() < iterations) {
+            log.warn("Warm-up stopped after {} of {} requests at the {} timeout", requests.get(), iterations, timeout);
+        }
+        log.info("Warm-up of {} requests ({} failed) on {} threads in {} ms", requests.get(), errors.get(), threads,
+                TimeUnit.NANOSECONDS.toMillis(durationNanos));
+    }
+
+    /**
+     * A single session, a vehicle's sessions (each sort) and its export for each of the most recent charge sessions.
+     */
+    private List<URI> uris(int port) {
+        List<URI> uris = new ArrayList<>();
+        List<ChargeSessionDto> chargeSessions = chargeSessionListRepository.findLatestDtos(Limit.of(SAMPLE_SIZE));
+        for (int i = 0; i < chargeSessions.size(); i++) {
+            ChargeSessionDto chargeSession = chargeSessions.get(i);
+            uris.add(URI.create("http://localhost:" + port + "/charge-sessions/" + chargeSession.getId()));
+            uris.add(URI.create("http://localhost:" + port + "/charge-sessions?vehicleId=" + chargeSession.getVehicleId()
+                    + "&sort=" + SORTS[i % SORTS.length]));
+            uris.add(URI.create("http://localhost:" + port + "/charge-sessions/export?vehicleId=" + chargeSession.getVehicleId()));
+        }
+        return uris;
+    }
+
+    private static boolean send(HttpClient httpClient, URI uri) {
+        // The export is only produced as NDJSON (or binary sequences)
+        String accept = uri.getPath().endsWith("/export") ? MediaType.APPLICATION_NDJSON_VALUE : MediaType.APPLICATION_JSON_VALUE;
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", accept)
+                .GET()
+                .build();
+        try {
+            int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status != 200) {
+                log.debug("Warm-up request {} returned {}", uri, status);
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            log.debug("Warm-up request {} failed", uri, e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+-- Indexes backing the keyset pagination of GET /charge-sessions. Each sort order is an index range scan plus LIMIT.
+-- H2 sorts nulls first by default so open sessions (END_TIME null) lead the endTime index as they do in the API.
+-- PostgreSQL equivalent of the second index: (VEHICLE_ID, END_TIME ASC NULLS FIRST, ID)
+CREATE INDEX charge_session_vehicle_start_time_idx ON PUBLIC.CHARGE_SESSION (VEHICLE_ID, START_TIME, ID);
+CREATE INDEX charge_session_vehicle_end_time_idx ON PUBLIC.CHARGE_SESSION (VEHICLE_ID, END_TIME, ID);
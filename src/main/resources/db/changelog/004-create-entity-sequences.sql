@@ -0,0 +1,20 @@
+-- One sequence per entity, incremented in blocks matching @SequenceGenerator(allocationSize = 50).
+-- Hibernate's pooled-lo optimizer hands out ids [nextval, nextval + 49], so each sequence starts past every id in use:
+-- past the table's highest id and the next value of hibernate_sequence (which all tables drew their ids from before),
+-- rounded up to the next block of 50 and at least 100 (clear of the seeded test data).
+CREATE SEQUENCE charge_point_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE vehicle_seq START WITH 100 INCREMENT BY 50;
+CREATE SEQUENCE charge_session_seq START WITH 100 INCREMENT BY 50;
+
+ALTER SEQUENCE charge_point_seq RESTART WITH (SELECT (GREATEST(100,
+    (SELECT COALESCE(MAX(id), 0) + 1 FROM PUBLIC.CHARGE_POINT),
+    (SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'HIBERNATE_SEQUENCE')) + 49) / 50 * 50);
+ALTER SEQUENCE vehicle_seq RESTART WITH (SELECT (GREATEST(100,
+    (SELECT COALESCE(MAX(id), 0) + 1 FROM PUBLIC.VEHICLE),
+    (SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'HIBERNATE_SEQUENCE')) + 49) / 50 * 50);
+ALTER SEQUENCE charge_session_seq RESTART WITH (SELECT (GREATEST(100,
+    (SELECT COALESCE(MAX(id), 0) + 1 FROM PUBLIC.CHARGE_SESSION),
+    (SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'HIBERNATE_SEQUENCE')) + 49) / 50 * 50);
+
+-- Replaced by the sequences above
+DROP SEQUENCE hibernate_sequence;
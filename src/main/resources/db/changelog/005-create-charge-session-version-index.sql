@@ -0,0 +1,4 @@
+-- Covering index for the version stamp of a vehicle's charge sessions (ETag of GET /charge-sessions): count, count of
+-- END_TIME and max of DATE_CREATED and DATE_UPDATED are computed from the index entries of the vehicle without reading
+-- table rows.
+CREATE INDEX charge_session_vehicle_version_idx ON PUBLIC.CHARGE_SESSION (VEHICLE_ID, DATE_CREATED, DATE_UPDATED, END_TIME);
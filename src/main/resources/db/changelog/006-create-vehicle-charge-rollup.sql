@@ -0,0 +1,28 @@
+-- Per vehicle totals of ended charge sessions per UTC day and month, maintained by the application as sessions end.
+-- The primary key serves the range scan of GET /vehicles/{id}/charge-summary.
+CREATE TABLE PUBLIC.VEHICLE_CHARGE_ROLLUP (
+    vehicle_id BIGINT NOT NULL,
+    granularity VARCHAR(10) NOT NULL,
+    bucket_start BIGINT NOT NULL,
+    session_count BIGINT NOT NULL,
+    total_cost_micro_cents BIGINT NOT NULL,
+    energy_micro_joules BIGINT NOT NULL,
+    date_updated BIGINT,
+    CONSTRAINT vehicle_charge_rollup_pk PRIMARY KEY (vehicle_id, granularity, bucket_start),
+    CONSTRAINT vehicle_charge_rollup_to_vehicle_id FOREIGN KEY (vehicle_id) REFERENCES VEHICLE (ID)
+);
+
+-- Backfill from the sessions ended before the rollup existed. Their energy was never stored and is counted as 0.
+INSERT INTO PUBLIC.VEHICLE_CHARGE_ROLLUP
+SELECT vehicle_id, 'DAY', day_start, COUNT(*), SUM(CAST(COALESCE(total_cost, 0) * 100000000 AS BIGINT)), 0, MAX(end_time)
+FROM (SELECT vehicle_id, total_cost, end_time, end_time - MOD(end_time, 86400000) AS day_start
+      FROM PUBLIC.CHARGE_SESSION WHERE end_time IS NOT NULL)
+GROUP BY vehicle_id, day_start;
+
+INSERT INTO PUBLIC.VEHICLE_CHARGE_ROLLUP
+SELECT vehicle_id, 'MONTH', month_start, COUNT(*), SUM(CAST(COALESCE(total_cost, 0) * 100000000 AS BIGINT)), 0, MAX(end_time)
+FROM (SELECT vehicle_id, total_cost, end_time,
+             DATEDIFF(MILLISECOND, TIMESTAMP '1970-01-01 00:00:00',
+                      DATE_TRUNC(MONTH, DATEADD(MILLISECOND, end_time, TIMESTAMP '1970-01-01 00:00:00'))) AS month_start
+      FROM PUBLIC.CHARGE_SESSION WHERE end_time IS NOT NULL)
+GROUP BY vehicle_id, month_start;
@@ -0,0 +1,5 @@
+-- Charge point filter of GET /charge-sessions. Also indexes the CHARGEPOINT_ID foreign key, which PostgreSQL does not
+-- index by itself (VEHICLE_ID is the leading column of the indexes in 003-create-charge-session-indexes.sql).
+-- Start time ranges and the open/closed status are served by the existing (VEHICLE_ID, START_TIME, ID) and
+-- (VEHICLE_ID, END_TIME, ID) indexes.
+CREATE INDEX charge_session_charge_point_start_time_idx ON PUBLIC.CHARGE_SESSION (CHARGEPOINT_ID, START_TIME, ID);
@@ -0,0 +1,4 @@
+-- At most one open session (no END_TIME) per vehicle on PostgreSQL, the rule of 008-create-open-session-unique-index.sql
+-- (H2) as a partial index. Also run by Hibernate after it generates the schema (hibernate.hbm2ddl.import_files, itest
+-- profile), so keep each statement on a single line.
+CREATE UNIQUE INDEX IF NOT EXISTS charge_session_one_open_per_vehicle_idx ON charge_session (vehicle_id) WHERE end_time IS NULL;
@@ -0,0 +1,6 @@
+-- At most one open session (no END_TIME) per vehicle, also across nodes that do not share the in-process VehicleLocks.
+-- H2 has no partial indexes, so the vehicle of an open session is kept in a generated column that is NULL once the
+-- session has ended, and that column is unique (NULLs are distinct). On PostgreSQL the same rule is the partial index of
+-- 008-create-open-session-partial-index-postgresql.sql.
+ALTER TABLE PUBLIC.CHARGE_SESSION ADD COLUMN OPEN_VEHICLE_ID BIGINT GENERATED ALWAYS AS (CASE WHEN END_TIME IS NULL THEN VEHICLE_ID END);
+CREATE UNIQUE INDEX charge_session_one_open_per_vehicle_idx ON PUBLIC.CHARGE_SESSION (OPEN_VEHICLE_ID);
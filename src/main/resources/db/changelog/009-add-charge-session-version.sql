@@ -0,0 +1,2 @@
+-- Optimistic lock version of ChargeSession (@Version), incremented by Hibernate on every update.
+ALTER TABLE PUBLIC.CHARGE_SESSION ADD COLUMN VERSION BIGINT DEFAULT 0 NOT NULL;
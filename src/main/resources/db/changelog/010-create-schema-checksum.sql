@@ -0,0 +1,8 @@
+-- Checksum of the changelog files last applied in full (see SchemaChecksumPostProcessor). When it matches the changelog
+-- packaged with the application, start up may skip the Liquibase run (application.liquibase.skipWhenUnchanged).
+CREATE TABLE PUBLIC.SCHEMA_CHECKSUM (
+    change_log VARCHAR(255) NOT NULL,
+    checksum VARCHAR(64) NOT NULL,
+    date_updated BIGINT NOT NULL,
+    CONSTRAINT schema_checksum_pk PRIMARY KEY (change_log)
+);
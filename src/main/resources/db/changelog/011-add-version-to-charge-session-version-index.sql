@@ -0,0 +1,5 @@
+-- The version stamp of a vehicle's charge sessions sums the optimistic lock versions (VERSION) instead of counting the
+-- ended sessions. VERSION replaces END_TIME in the covering index so the stamp is still computed from the index entries
+-- of the vehicle alone.
+DROP INDEX PUBLIC.charge_session_vehicle_version_idx;
+CREATE INDEX charge_session_vehicle_version_idx ON PUBLIC.CHARGE_SESSION (VEHICLE_ID, DATE_CREATED, DATE_UPDATED, VERSION);
@@ -0,0 +1,34 @@
+package co.bk.task.restapi;
+
+import co.bk.task.restapi.model.ChargePoint;
+import co.bk.task.restapi.model.Vehicle;
+import co.bk.task.restapi.repository.ChargePointRepository;
+import co.bk.task.restapi.repository.VehicleRepository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reference data for tests that need a vehicle and a charge point of their own, so they do not depend on the seeded
+ * rows or on each other: a vehicle with a license plate no other test uses and a 22 kW charge point.
+ */
+public class TestFixtures {
+
+    private static final AtomicInteger LICENSE_PLATE_NUMBERS = new AtomicInteger();
+
+    private final VehicleRepository vehicleRepository;
+
+    private final ChargePointRepository chargePointRepository;
+
+    public TestFixtures(VehicleRepository vehicleRepository, ChargePointRepository chargePointRepository) {
+        this.vehicleRepository = vehicleRepository;
+        this.chargePointRepository = chargePointRepository;
+    }
+
+    public Vehicle saveVehicle() {
+        return vehicleRepository.save(Vehicle.createVehicle(String.format("22-TF-%05d", LICENSE_PLATE_NUMBERS.incrementAndGet())));
+    }
+
+    public ChargePoint saveChargePoint() {
+        return chargePointRepository.save(ChargePoint.createChargePoint("charger-model-l2", 22.0));
+    }
+}
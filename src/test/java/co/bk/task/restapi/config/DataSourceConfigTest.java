@@ -0,0 +1,54 @@
+package co.bk.task.restapi.config;
+
+import co.bk.task.restapi.repository.VehicleRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+public class DataSourceConfigTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Test
+    void dataSource_isPooledAndConfiguredFromProperties() {
+
+        HikariDataSource hikariDataSource = assertInstanceOf(HikariDataSource.class, dataSource);
+
+        assertEquals("restapi-pool", hikariDataSource.getPoolName());
+        assertEquals(10, hikariDataSource.getMaximumPoolSize());
+        assertEquals(5000, hikariDataSource.getConnectionTimeout());
+        assertEquals(60000, hikariDataSource.getLeakDetectionThreshold());
+        assertTrue(hikariDataSource.getJdbcUrl().startsWith("jdbc:h2:mem:testdb"));
+    }
+
+    @Test
+    void dataSource_publishesPoolMetrics() {
+
+        vehicleRepository.count();
+
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").tag("pool", "restapi-pool").timer();
+        assertNotNull(acquire);
+        assertTrue(acquire.count() > 0);
+        assertNotNull(meterRegistry.find("hikaricp.connections.active").tag("pool", "restapi-pool").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections.idle").tag("pool", "restapi-pool").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections.pending").tag("pool", "restapi-pool").gauge());
+    }
+}
@@ -0,0 +1,91 @@
+package co.bk.task.restapi.config;
+
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+public class SchemaChecksumPostProcessorTest {
+
+    private static final String CHANGE_LOG = "classpath:db/changelog/db.changelog-master.yaml";
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private SpringLiquibase liquibase;
+
+    @BeforeEach
+    void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog(CHANGE_LOG);
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase = spy(liquibase);
+    }
+
+    @Test
+    void startUp_storesChecksum() {
+        assertEquals(SchemaChecksumPostProcessor.checksum(liquibase), storedChecksum());
+    }
+
+    @Test
+    void unchangedChecksum_skipsLiquibase() throws Exception {
+
+        // when
+        initialise(new SchemaChecksumPostProcessor(true));
+
+        // then
+        verify(liquibase).setShouldRun(false);
+        verify(liquibase).afterPropertiesSet();
+    }
+
+    @Test
+    void changedChecksum_runsLiquibaseAndStoresChecksum() throws Exception {
+
+        // given a database last migrated with another changelog
+        jdbcTemplate.update("UPDATE SCHEMA_CHECKSUM SET checksum = 'stale' WHERE change_log = ?", CHANGE_LOG);
+
+        // when
+        initialise(new SchemaChecksumPostProcessor(true));
+
+        // then
+        verify(liquibase, never()).setShouldRun(anyBoolean());
+        assertEquals(SchemaChecksumPostProcessor.checksum(liquibase), storedChecksum());
+    }
+
+    @Test
+    void skipDisabled_runsLiquibase() throws Exception {
+
+        // when
+        initialise(new SchemaChecksumPostProcessor(false));
+
+        // then
+        verify(liquibase, never()).setShouldRun(anyBoolean());
+        assertEquals(SchemaChecksumPostProcessor.checksum(liquibase), storedChecksum());
+    }
+
+    private void initialise(SchemaChecksumPostProcessor postProcessor) throws Exception {
+        postProcessor.postProcessBeforeInitialization(liquibase, "liquibase");
+        liquibase.afterPropertiesSet();
+        postProcessor.postProcessAfterInitialization(liquibase, "liquibase");
+    }
+
+    private String storedChecksum() {
+        return jdbcTemplate.queryForObject("SELECT checksum FROM SCHEMA_CHECKSUM WHERE change_log = ?", String.class, CHANGE_LOG);
+    }
+}
@@ -0,0 +1,236 @@
+package co.bk.task.restapi.repository;
+
+import co.bk.task.restapi.model.ChargePoint;
+import co.bk.task.restapi.model.ChargeSession;
+import co.bk.task.restapi.model.Vehicle;
+import co.bk.task.restapi.service.converter.ChargeSessionConverter;
+import co.bk.task.restapi.service.dto.ChargeSessionDto;
+import co.bk.task.restapi.util.ChargeSessionFilter;
+import co.bk.task.restapi.util.EndTimeComparator;
+import co.bk.task.restapi.util.KeysetCursor;
+import co.bk.task.restapi.util.SortParameterEnum;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pages through a vehicle's history with a small page size and checks the database ordering matches the ordering
+ * the API has always applied in memory (EndTimeComparator places open sessions first).
+ */
+@SpringBootTest
+@Transactional
+public class ChargeSessionListRepositoryTest {
+
+    // Page size 1 makes every session, the open one included, the cursor of a page
+    private static final int[] PAGE_SIZES = { 1, 2 };
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private ChargePointRepository chargePointRepository;
+
+    @Autowired
+    private ChargeSessionListRepository chargeSessionListRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final ChargeSessionConverter chargeSessionConverter = new ChargeSessionConverter();
+
+    private Vehicle vehicle;
+
+    private ChargePoint otherChargePoint;
+
+    private List<ChargeSessionDto> allSessions;
+
+    @BeforeEach
+    void setup() {
+        vehicle = vehicleRepository.save(Vehicle.createVehicle("22-WW-99999"));
+        ChargePoint chargePoint = chargePointRepository.save(ChargePoint.createChargePoint("charger-model-x123", 50.0));
+        otherChargePoint = chargePointRepository.save(ChargePoint.createChargePoint("charger-model-l2", 22.0));
+
+        // Duplicate start and end times as well as the open session exercise the id tie-breaker and null ordering
+        long[][] startAndEndTimes = {
+                { 1000L, 1500L }, { 1000L, 1200L }, { 2000L, 1500L }, { 3000L, 3500L },
+                { 2000L, 2500L }, { 4000L, 4500L }, { 1000L, 1500L }, { 5000L, -1L }
+        };
+
+        allSessions = new ArrayList<>();
+        for (int i = 0; i < startAndEndTimes.length; i++) {
+            long[] startAndEndTime = startAndEndTimes[i];
+            // Every other session at the other charge point, ended sessions cost end time / 100 Euros
+            ChargeSession chargeSession = new ChargeSession(vehicle, i % 2 == 0 ? chargePoint : otherChargePoint);
+            chargeSession.setStartTime(startAndEndTime[0]);
+            chargeSession.setEndTime(startAndEndTime[1] < 0 ? null : startAndEndTime[1]);
+            chargeSession.setTotalCost(startAndEndTime[1] < 0 ? null : BigDecimal.valueOf(startAndEndTime[1], 2));
+            allSessions.add(chargeSessionConverter.convert(chargeSessionListRepository.save(chargeSession)));
+        }
+    }
+
+    @Test
+    void findDtoPageForVehicle_startTime() {
+        assertPagesMatch(SortParameterEnum.START_TIME_ASC,
+                Comparator.comparing(ChargeSessionDto::getStartTime).thenComparing(ChargeSessionDto::getId));
+    }
+
+    @Test
+    void findDtoPageForVehicle_minus_startTime() {
+        assertPagesMatch(SortParameterEnum.START_TIME_DESC,
+                Comparator.comparing(ChargeSessionDto::getStartTime).thenComparing(ChargeSessionDto::getId).reversed());
+    }
+
+    @Test
+    void findDtoPageForVehicle_endTime() {
+        assertPagesMatch(SortParameterEnum.END_TIME_ASC,
+                new EndTimeComparator().thenComparing(ChargeSessionDto::getId));
+    }
+
+    @Test
+    void findDtoPageForVehicle_minus_endTime() {
+        assertPagesMatch(SortParameterEnum.END_TIME_DESC,
+                new EndTimeComparator().thenComparing(ChargeSessionDto::getId).reversed());
+    }
+
+    @Test
+    void findDtoPageForVehicle_filter_start_time_and_status() {
+        ChargeSessionFilter filter = new ChargeSessionFilter(1000L, 4000L, ChargeSessionFilter.Status.CLOSED, null, null, null);
+        assertPagesMatch(SortParameterEnum.START_TIME_ASC, filter,
+                chargeSession -> chargeSession.getStartTime() >= 1000L && chargeSession.getStartTime() < 4000L && chargeSession.getEndTime() != null,
+                Comparator.comparing(ChargeSessionDto::getStartTime).thenComparing(ChargeSessionDto::getId));
+    }
+
+    @Test
+    void findDtoPageForVehicle_filter_open() {
+        ChargeSessionFilter filter = new ChargeSessionFilter(null, null, ChargeSessionFilter.Status.OPEN, null, null, null);
+        assertPagesMatch(SortParameterEnum.END_TIME_DESC, filter,
+                chargeSession -> chargeSession.getEndTime() == null,
+                new EndTimeComparator().thenComparing(ChargeSessionDto::getId).reversed());
+    }
+
+    @Test
+    void findDtoPageForVehicle_filter_charge_point_and_cost() {
+        ChargeSessionFilter filter = new ChargeSessionFilter(null, null, null, otherChargePoint.getId(), new BigDecimal("40"), new BigDecimal("45.00"));
+        assertPagesMatch(SortParameterEnum.END_TIME_ASC, filter,
+                chargeSession -> chargeSession.getChargePointId().equals(otherChargePoint.getId())
+                        && chargeSession.getTotalCost() != null
+                        && chargeSession.getTotalCost().compareTo(new BigDecimal("40")) >= 0
+                        && chargeSession.getTotalCost().compareTo(new BigDecimal("45")) <= 0,
+                new EndTimeComparator().thenComparing(ChargeSessionDto::getId));
+    }
+
+    @Test
+    void findDtoById_matches_converter() {
+
+        ChargeSessionDto expected = allSessions.get(3);
+
+        assertEquals(expected, chargeSessionListRepository.findDtoById(expected.getId()).orElseThrow());
+        assertTrue(chargeSessionListRepository.findDtoById(-1L).isEmpty());
+    }
+
+    @Test
+    void findDtoPageForVehicle_loads_no_entities() {
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<ChargeSessionDto> page = chargeSessionListRepository.findDtoPageForVehicle(vehicle.getId(), ChargeSessionFilter.NONE, SortParameterEnum.START_TIME_ASC, null, allSessions.size());
+
+        assertEquals(allSessions.size(), page.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertTrue(page.stream().allMatch(chargeSession -> vehicle.getId().equals(chargeSession.getVehicleId())));
+    }
+
+    @Test
+    void findFirstByVehicleIdAndEndTimeIsNull() {
+
+        Vehicle vehicleWithoutOpenSession = vehicleRepository.save(Vehicle.createVehicle("22-WW-88888"));
+
+        ChargeSession openSession = chargeSessionListRepository.findFirstByVehicleIdAndEndTimeIsNull(vehicle.getId()).orElseThrow();
+
+        assertNull(openSession.getEndTime());
+        assertEquals(vehicle.getId(), openSession.getVehicle().getId());
+        assertTrue(chargeSessionListRepository.findFirstByVehicleIdAndEndTimeIsNull(vehicleWithoutOpenSession.getId()).isEmpty());
+    }
+
+    @Test
+    void second_open_session_for_vehicle_rejected() {
+
+        // given
+        chargeSessionListRepository.save(new ChargeSession(vehicle, otherChargePoint));
+
+        // when & then
+        assertThrows(DataIntegrityViolationException.class, () -> chargeSessionListRepository.flush());
+    }
+
+    @Test
+    void ended_sessions_not_limited_per_vehicle() {
+
+        // given
+        ChargeSession openSession = chargeSessionListRepository.findFirstByVehicleIdAndEndTimeIsNull(vehicle.getId()).orElseThrow();
+        openSession.setEndTime(6000L);
+        chargeSessionListRepository.flush();
+
+        // when
+        chargeSessionListRepository.save(new ChargeSession(vehicle, otherChargePoint));
+        chargeSessionListRepository.flush();
+
+        // then
+        assertEquals(allSessions.size() + 1, chargeSessionListRepository.findVersionByVehicleId(vehicle.getId()).getSessionCount());
+    }
+
+    private void assertPagesMatch(SortParameterEnum sortedBy, Comparator<ChargeSessionDto> expectedOrder) {
+        assertPagesMatch(sortedBy, ChargeSessionFilter.NONE, chargeSession -> true, expectedOrder);
+    }
+
+    private void assertPagesMatch(SortParameterEnum sortedBy, ChargeSessionFilter filter, Predicate<ChargeSessionDto> expectedFilter,
+                                  Comparator<ChargeSessionDto> expectedOrder) {
+
+        List<Long> expectedIds = allSessions.stream().filter(expectedFilter).sorted(expectedOrder).map(ChargeSessionDto::getId).toList();
+        assertFalse(expectedIds.isEmpty());
+
+        for (int pageSize : PAGE_SIZES) {
+            List<Long> pagedIds = new ArrayList<>();
+            KeysetCursor after = null;
+            List<ChargeSessionDto> page;
+            do {
+                page = chargeSessionListRepository.findDtoPageForVehicle(vehicle.getId(), filter, sortedBy, after, pageSize);
+                for (ChargeSessionDto chargeSession : page) {
+                    pagedIds.add(chargeSession.getId());
+                }
+                if (!page.isEmpty()) {
+                    // Round trip the cursor through its opaque form as a client would
+                    KeysetCursor cursor = KeysetCursor.after(sortedBy, page.get(page.size() - 1));
+                    after = KeysetCursor.decode(cursor.encode(), sortedBy);
+                }
+            } while (page.size() == pageSize);
+
+            assertEquals(expectedIds, pagedIds);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package co.bk.task.restapi.repository;
+
+import co.bk.task.restapi.TestFixtures;
+import co.bk.task.restapi.model.ChargePoint;
+import co.bk.task.restapi.model.ChargeSession;
+import co.bk.task.restapi.model.Vehicle;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks ids come from the per-entity sequences, clear of the seeded rows, and are allocated in blocks (see
+ * DataSourceConfig and 004-create-entity-sequences.sql).
+ */
+@SpringBootTest
+public class EntityIdAllocationTest {
+
+    // allocationSize of the @SequenceGenerator of each entity and increment of its sequence
+    private static final int BLOCK_SIZE = 50;
+
+    // Seeded rows (002-init-data.sql) have ids below 100
+    private static final long FIRST_SEQUENCE_ID = 100;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private ChargePointRepository chargePointRepository;
+
+    @Autowired
+    private ChargeSessionListRepository chargeSessionListRepository;
+
+    private TestFixtures testFixtures;
+
+    @BeforeEach
+    void setup() {
+        testFixtures = new TestFixtures(vehicleRepository, chargePointRepository);
+    }
+
+    @Test
+    void new_ids_come_from_entity_sequences() {
+
+        // when
+        Vehicle vehicle = testFixtures.saveVehicle();
+        ChargePoint chargePoint = testFixtures.saveChargePoint();
+        ChargeSession chargeSession = chargeSessionListRepository.save(
+                ChargeSession.createChargeSession(vehicle, chargePoint, new BigDecimal("1.00"), System.currentTimeMillis()));
+
+        // then
+        assertTrue(vehicle.getId() >= FIRST_SEQUENCE_ID);
+        assertTrue(chargePoint.getId() >= FIRST_SEQUENCE_ID);
+        assertTrue(chargeSession.getId() >= FIRST_SEQUENCE_ID);
+    }
+
+    @Test
+    void block_of_sessions_costs_at_most_one_sequence_call() {
+
+        // given
+        Vehicle vehicle = testFixtures.saveVehicle();
+        ChargePoint chargePoint = testFixtures.saveChargePoint();
+        List<ChargeSession> chargeSessions = new ArrayList<>();
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            // Ended, as a vehicle may have one open session only
+            chargeSessions.add(ChargeSession.createChargeSession(vehicle, chargePoint, new BigDecimal("1.00"), System.currentTimeMillis()));
+        }
+        long sequenceBefore = nextSequenceValue("CHARGE_SESSION_SEQ");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // when
+        List<ChargeSession> saved = chargeSessionListRepository.saveAll(chargeSessions);
+
+        // then at most one block was drawn from the sequence, and the inserts went out as one JDBC batch
+        long prepareStatementCount = statistics.getPrepareStatementCount();
+        assertTrue(nextSequenceValue("CHARGE_SESSION_SEQ") - sequenceBefore <= BLOCK_SIZE);
+        assertTrue(prepareStatementCount <= 2, "statements prepared: " + prepareStatementCount);
+        assertEquals(BLOCK_SIZE, saved.stream().map(ChargeSession::getId).filter(id -> id >= FIRST_SEQUENCE_ID).distinct().count());
+    }
+
+    private long nextSequenceValue(String sequenceName) {
+        return ((Number) entityManager.createNativeQuery("SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = :name")
+                .setParameter("name", sequenceName)
+                .getSingleResult()).longValue();
+    }
+}
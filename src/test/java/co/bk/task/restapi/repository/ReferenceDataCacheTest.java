@@ -0,0 +1,88 @@
+package co.bk.task.restapi.repository;
+
+import co.bk.task.restapi.model.ChargePoint;
+import co.bk.task.restapi.model.Vehicle;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks lookups by id through the repositories are served by the second-level cache, give each caller its own
+ * instance and see every write.
+ */
+@SpringBootTest
+public class ReferenceDataCacheTest {
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private ChargePointRepository chargePointRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void findById_cached_instance_per_caller() {
+
+        // given
+        Vehicle vehicle = vehicleRepository.save(Vehicle.createVehicle("22-WW-66666"));
+        vehicleRepository.findById(vehicle.getId());
+        statistics.clear();
+
+        // when
+        Vehicle first = vehicleRepository.findById(vehicle.getId()).orElseThrow();
+        Vehicle second = vehicleRepository.findById(vehicle.getId()).orElseThrow();
+
+        // then both are served from the cache, and changing one does not change the other
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertNotSame(first, second);
+        first.setBatteryLevelPercent(12.0);
+        assertEquals(vehicle.getBatteryLevelPercent(), second.getBatteryLevelPercent());
+    }
+
+    @Test
+    void findById_reflects_save() {
+
+        // given
+        Vehicle vehicle = vehicleRepository.save(Vehicle.createVehicle("22-WW-66667"));
+        vehicleRepository.findById(vehicle.getId());
+
+        // when
+        vehicle.setBatteryLevelPercent(55.0);
+        vehicleRepository.save(vehicle);
+
+        // then
+        assertEquals(55.0, vehicleRepository.findById(vehicle.getId()).orElseThrow().getBatteryLevelPercent());
+    }
+
+    @Test
+    void findById_reflects_delete() {
+
+        // given
+        ChargePoint chargePoint = chargePointRepository.save(ChargePoint.createChargePoint("charger-model-x123", 50.0));
+        chargePointRepository.findById(chargePoint.getId());
+
+        // when
+        chargePointRepository.deleteById(chargePoint.getId());
+
+        // then
+        assertTrue(chargePointRepository.findById(chargePoint.getId()).isEmpty());
+        assertTrue(chargePointRepository.findById(987654L).isEmpty());
+    }
+}
@@ -0,0 +1,167 @@
+package co.bk.task.restapi.repository;
+
+import co.bk.task.restapi.TestFixtures;
+import co.bk.task.restapi.model.ChargePoint;
+import co.bk.task.restapi.model.ChargeSession;
+import co.bk.task.restapi.model.Vehicle;
+import co.bk.task.restapi.service.tariff.TariffEngine;
+import co.bk.task.restapi.util.SummaryGranularityEnum;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks entity loads of Vehicle and ChargePoint are served by the Hibernate second-level cache once the entity is cached.
+ * Each load uses a new EntityManager so the persistence context (first-level cache) cannot answer it.
+ */
+@SpringBootTest
+public class SecondLevelCacheTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private ChargePointRepository chargePointRepository;
+
+    @Autowired
+    private ChargeSessionListRepository chargeSessionListRepository;
+
+    @Autowired
+    private VehicleChargeRollupRepository vehicleChargeRollupRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private TestFixtures testFixtures;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        testFixtures = new TestFixtures(vehicleRepository, chargePointRepository);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+    }
+
+    @Test
+    void find_chargePoint_second_load_skips_database() {
+
+        // given
+        ChargePoint chargePoint = testFixtures.saveChargePoint();
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+
+        // when
+        find(ChargePoint.class, chargePoint.getId());
+        find(ChargePoint.class, chargePoint.getId());
+
+        // then
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(ChargePoint.CACHE_REGION);
+        assertEquals(1, region.getMissCount());
+        assertEquals(1, region.getHitCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void find_vehicle_reflects_update() {
+
+        // given
+        Vehicle vehicle = testFixtures.saveVehicle();
+        find(Vehicle.class, vehicle.getId());
+
+        // when
+        vehicle.setBatteryLevelPercent(85.0);
+        vehicleRepository.save(vehicle);
+        statistics.clear();
+
+        // then
+        assertEquals(85.0, find(Vehicle.class, vehicle.getId()).getBatteryLevelPercent());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void chargeSession_associations_resolved_from_cache() {
+
+        // given
+        Vehicle vehicle = testFixtures.saveVehicle();
+        Vehicle otherVehicle = testFixtures.saveVehicle();
+        ChargePoint chargePoint = chargePointRepository.save(ChargePoint.createChargePoint("charger-model-l2", 50.0));
+        chargeSessionListRepository.saveAll(List.of(new ChargeSession(vehicle, chargePoint), new ChargeSession(otherVehicle, chargePoint)));
+        find(Vehicle.class, vehicle.getId());
+        find(Vehicle.class, otherVehicle.getId());
+        find(ChargePoint.class, chargePoint.getId());
+        statistics.clear();
+
+        // when
+        List<ChargeSession> chargeSessions = chargeSessionListRepository.findByVehicleIdInAndEndTimeIsNull(List.of(vehicle.getId(), otherVehicle.getId()));
+
+        // then only the charge session query itself reaches the database
+        assertEquals(2, chargeSessions.size());
+        assertEquals(50.0, chargeSessions.get(0).getChargePoint().getChargingPowerKw());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void chargeSessions_by_id_fetch_associations_in_one_query() {
+
+        // given two sessions of vehicles and a charge point that are not cached
+        Vehicle vehicle = testFixtures.saveVehicle();
+        Vehicle otherVehicle = testFixtures.saveVehicle();
+        ChargePoint chargePoint = testFixtures.saveChargePoint();
+        List<ChargeSession> saved = chargeSessionListRepository.saveAll(List.of(new ChargeSession(vehicle, chargePoint), new ChargeSession(otherVehicle, chargePoint)));
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+
+        // when
+        List<ChargeSession> chargeSessions = chargeSessionListRepository.findAllWithAssociationsById(
+                List.of(saved.get(0).getId(), saved.get(1).getId()));
+
+        // then
+        assertEquals(2, chargeSessions.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void rollup_insert_keeps_reference_data_cached() {
+
+        // given
+        Vehicle vehicle = testFixtures.saveVehicle();
+        ChargePoint chargePoint = testFixtures.saveChargePoint();
+        find(Vehicle.class, vehicle.getId());
+        find(ChargePoint.class, chargePoint.getId());
+
+        // when the first session of the day ends, inserting a new bucket
+        transactionTemplate.executeWithoutResult(status -> vehicleChargeRollupRepository.insert(vehicle.getId(),
+                SummaryGranularityEnum.DAY.name(), SummaryGranularityEnum.DAY.bucketStart(System.currentTimeMillis()),
+                1L, TariffEngine.MINIMUM_CONNECTION_FEE_MICRO_CENTS, 0L, System.currentTimeMillis()));
+
+        // then
+        assertTrue(entityManagerFactory.getCache().contains(Vehicle.class, vehicle.getId()));
+        assertTrue(entityManagerFactory.getCache().contains(ChargePoint.class, chargePoint.getId()));
+    }
+
+    private <T> T find(Class<T> entityClass, Long id) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return entityManager.find(entityClass, id);
+        } finally {
+            entityManager.close();
+        }
+    }
+}
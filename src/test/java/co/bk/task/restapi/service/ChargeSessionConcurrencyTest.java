@@ -0,0 +1,123 @@
+package co.bk.task.restapi.service;
+
+import co.bk.task.restapi.model.ChargePoint;
+import co.bk.task.restapi.model.ChargeSession;
+import co.bk.task.restapi.model.Vehicle;
+import co.bk.task.restapi.repository.ChargePointRepository;
+import co.bk.task.restapi.repository.ChargeSessionListRepository;
+import co.bk.task.restapi.repository.VehicleRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Many threads create or end charge sessions of the same few vehicles at once. Each vehicle must end up with exactly one
+ * open session and every create request must have created a session; each session must be ended (written) exactly once.
+ */
+@SpringBootTest
+public class ChargeSessionConcurrencyTest {
+
+    private static final int VEHICLES = 4;
+
+    private static final int THREADS = 16;
+
+    private static final int CREATES_PER_THREAD = 25;
+
+    @Autowired
+    private ChargeSessionService chargeSessionService;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private ChargePointRepository chargePointRepository;
+
+    @Autowired
+    private ChargeSessionListRepository chargeSessionListRepository;
+
+    @Test
+    void createChargeSession_one_open_session_per_vehicle_under_contention() throws Exception {
+
+        // given
+        List<Long> vehicleIds = new ArrayList<>();
+        for (int i = 0; i < VEHICLES; i++) {
+            vehicleIds.add(vehicleRepository.save(Vehicle.createVehicle("22-CC-0000" + i)).getId());
+        }
+        Long chargePointId = chargePointRepository.save(ChargePoint.createChargePoint("charger-model-x123", 50.0)).getId();
+
+        AtomicInteger threads = new AtomicInteger();
+
+        // when all threads start together, each cycling through the vehicles from a different one
+        runConcurrently(() -> {
+            int offset = threads.getAndIncrement();
+            for (int i = 0; i < CREATES_PER_THREAD; i++) {
+                chargeSessionService.createChargeSession(vehicleIds.get((offset + i) % VEHICLES), chargePointId);
+            }
+        });
+
+        // then
+        int createsPerVehicle = THREADS * CREATES_PER_THREAD / VEHICLES;
+        for (Long vehicleId : vehicleIds) {
+            assertEquals(1, chargeSessionListRepository.findByVehicleIdInAndEndTimeIsNull(List.of(vehicleId)).size());
+            assertEquals(createsPerVehicle, chargeSessionListRepository.findVersionByVehicleId(vehicleId).getSessionCount());
+        }
+    }
+
+    @Test
+    void updateChargeSession_ends_each_session_once_under_contention() throws Exception {
+
+        // given an open session for each vehicle
+        Long chargePointId = chargePointRepository.save(ChargePoint.createChargePoint("charger-model-x123", 50.0)).getId();
+        List<Long> chargeSessionIds = new ArrayList<>();
+        for (int i = 0; i < VEHICLES; i++) {
+            Long vehicleId = vehicleRepository.save(Vehicle.createVehicle("22-EE-0000" + i)).getId();
+            chargeSessionIds.add(chargeSessionService.createChargeSession(vehicleId, chargePointId).getId());
+        }
+
+        // when all threads end all sessions together
+        runConcurrently(() -> {
+            for (Long chargeSessionId : chargeSessionIds) {
+                chargeSessionService.updateChargeSession(chargeSessionId);
+            }
+        });
+
+        // then one write per session: version 0 on insert, 1 once ended
+        for (Long chargeSessionId : chargeSessionIds) {
+            ChargeSession chargeSession = chargeSessionListRepository.findById(chargeSessionId).orElseThrow();
+            assertNotNull(chargeSession.getEndTime());
+            assertEquals(1L, chargeSession.getVersion());
+        }
+    }
+
+    private static void runConcurrently(Runnable work) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int thread = 0; thread < THREADS; thread++) {
+                futures.add(executorService.submit(() -> {
+                    start.await();
+                    work.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package co.bk.task.restapi.service;
+
+import co.bk.task.restapi.model.ChargePoint;
+import co.bk.task.restapi.model.ChargeSession;
+import co.bk.task.restapi.model.Vehicle;
+import co.bk.task.restapi.repository.ChargePointRepository;
+import co.bk.task.restapi.repository.ChargeSessionListRepository;
+import co.bk.task.restapi.repository.VehicleRepository;
+import co.bk.task.restapi.service.dto.ChargeSessionDto;
+import co.bk.task.restapi.web.exceptionhandling.ApplicationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Three sessions span two pages
+@SpringBootTest(properties = "application.export.pageSize=2")
+@Transactional
+public class ChargeSessionExportServiceTest {
+
+    @Autowired
+    private ChargeSessionExportService chargeSessionExportService;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private ChargePointRepository chargePointRepository;
+
+    @Autowired
+    private ChargeSessionListRepository chargeSessionListRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void exportChargeSessionsForVehicle() throws Exception {
+
+        // given
+        Vehicle vehicle = vehicleRepository.save(Vehicle.createVehicle("22-WW-77777"));
+        ChargePoint chargePoint = chargePointRepository.save(ChargePoint.createChargePoint("charger-model-x123", 50.0));
+        for (int i = 0; i < 3; i++) {
+            ChargeSession chargeSession = ChargeSession.createChargeSession(vehicle, chargePoint, new BigDecimal("1.55"), 2000L + i);
+            chargeSession.setStartTime(1000L + i);
+            chargeSessionListRepository.save(chargeSession);
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        chargeSessionExportService.exportChargeSessionsForVehicle(vehicle.getId(), MediaType.APPLICATION_NDJSON, outputStream);
+
+        // then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertTrue(lines[i].startsWith("{") && lines[i].endsWith("}"));
+            ChargeSessionDto chargeSessionDto = objectMapper.readValue(lines[i], ChargeSessionDto.class);
+            assertEquals(1000L + i, chargeSessionDto.getStartTime());
+            assertEquals(vehicle.getId(), chargeSessionDto.getVehicleId());
+        }
+    }
+
+    @Test
+    void checkVehicleExists_error_RECORD_NOT_FOUND_FOR_VEHICLE() {
+
+        assertThatThrownBy(() -> chargeSessionExportService.checkVehicleExists(123456L))
+                .isInstanceOf(ApplicationException.class)
+                .hasMessage(String.format(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_VEHICLE.getMessage(), 123456L));
+    }
+}
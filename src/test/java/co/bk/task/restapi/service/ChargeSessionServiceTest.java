@@ -6,17 +6,33 @@ import co.bk.task.restapi.model.Vehicle;
 import co.bk.task.restapi.repository.ChargePointRepository;
 import co.bk.task.restapi.repository.ChargeSessionListRepository;
 import co.bk.task.restapi.repository.VehicleRepository;
+import co.bk.task.restapi.service.VehicleChargeSummaryService.RollupDeltas;
 import co.bk.task.restapi.service.converter.ChargeSessionConverter;
+import co.bk.task.restapi.service.dto.ChargeSessionBatchResultDto;
+import co.bk.task.restapi.service.dto.ChargeSessionCreateDto;
 import co.bk.task.restapi.service.dto.ChargeSessionDto;
+import co.bk.task.restapi.service.dto.ChargeSessionPageDto;
+import co.bk.task.restapi.service.journal.ChargeSessionEndJournal;
+import co.bk.task.restapi.service.journal.ChargeSessionEndJournal.EndEvent;
+import co.bk.task.restapi.service.tariff.TariffEngine;
+import co.bk.task.restapi.util.ChargeSessionFilter;
+import co.bk.task.restapi.util.KeysetCursor;
 import co.bk.task.restapi.util.SortParameterEnum;
 import co.bk.task.restapi.web.exceptionhandling.ApplicationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.commons.compress.utils.Lists;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
@@ -24,7 +40,11 @@ import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -51,32 +71,46 @@ public class ChargeSessionServiceTest {
     @Mock
     ChargeSessionConverter chargeSessionConverter;
 
+    @Mock
+    VehicleChargeSummaryService vehicleChargeSummaryService;
+
+    @Mock
+    VehicleLocks vehicleLocks;
+
+    @Mock
+    ChargeSessionEndJournal chargeSessionEndJournal;
+
+    @Mock
+    ChargeSessionEventHub chargeSessionEventHub;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @BeforeEach
     void setup() {
-        // Manual instantiation instead of using @InjectMocks as a value needs to be assigned to the @Value annotated field (via constructor using Lombok)
-        serviceUnderTest = new ChargeSessionService(Double.valueOf("0.50"), chargeSessionListRepository, vehicleRepository, chargePointRepository, chargeSessionConverter);
+        // Manual instantiation instead of using @InjectMocks so the real tariff engine calculates costs
+        serviceUnderTest = new ChargeSessionService(new TariffEngine(Double.valueOf("0.50")), chargeSessionListRepository, vehicleRepository, chargePointRepository, chargeSessionConverter, new ChargeSessionMetrics(meterRegistry), vehicleChargeSummaryService, vehicleLocks,
+                new OptimisticLockRetry(TransactionOperations.withoutTransaction(), 3, Duration.ZERO), chargeSessionEndJournal, chargeSessionEventHub);
     }
 
     @Test
     void testGetChargeSessionsForVehicleSorted() {
 
         // given
-        ChargeSession chargeSession = spy(ChargeSession.class);
-        chargeSession.setId(CHARGE_SESSION_ONE);
         ChargeSessionDto chargeSessionDto = spy(ChargeSessionDto.class);
         chargeSessionDto.setId(CHARGE_SESSION_ONE);
         Vehicle vehicle = mock(Vehicle.class);
 
         when(vehicleRepository.findById(any())).thenReturn(Optional.of(vehicle));
 
-        when(chargeSessionListRepository.findChargeSessionsByVehicleId(any())).thenReturn(List.of(chargeSession));
-        when(chargeSessionConverter.convert(chargeSession)).thenReturn(chargeSessionDto);
+        when(chargeSessionListRepository.findDtoPageForVehicle(any(), any(), any(), any(), anyInt())).thenReturn(List.of(chargeSessionDto));
 
         // when
-        List<ChargeSessionDto> chargeSessionDtoList = serviceUnderTest.getChargeSessionsForVehicleSorted(VEHICLE_ID, SortParameterEnum.START_TIME_ASC);
+        ChargeSessionPageDto page = serviceUnderTest.getChargeSessionsForVehicleSorted(VEHICLE_ID, ChargeSessionFilter.NONE, SortParameterEnum.START_TIME_ASC, null, 10);
 
         // then
-        assertEquals(1, chargeSessionDtoList.size());
+        assertEquals(1, page.getChargeSessions().size());
+        assertNull(page.getNextCursor());
+        assertEquals(1, meterRegistry.get(ChargeSessionMetrics.PAGE_SIZE).summary().count());
 
     }
 
@@ -86,13 +120,39 @@ public class ChargeSessionServiceTest {
         // given
         Vehicle vehicle = mock(Vehicle.class);
         when(vehicleRepository.findById(any())).thenReturn(Optional.of(vehicle));
-        when(chargeSessionListRepository.findChargeSessionsByVehicleId(any())).thenReturn(Lists.newArrayList());
+        when(chargeSessionListRepository.findDtoPageForVehicle(any(), any(), any(), any(), anyInt())).thenReturn(Lists.newArrayList());
+
+        // when
+        ChargeSessionPageDto page = serviceUnderTest.getChargeSessionsForVehicleSorted(VEHICLE_ID, ChargeSessionFilter.NONE, SortParameterEnum.START_TIME_ASC, null, 10);
+
+        // then
+        assertEquals(0, page.getChargeSessions().size());
+        assertNull(page.getNextCursor());
+
+    }
+
+    @Test
+    void testGetChargeSessionsForVehicleSorted_next_page_exists() {
+
+        // given
+        Vehicle vehicle = mock(Vehicle.class);
+        when(vehicleRepository.findById(any())).thenReturn(Optional.of(vehicle));
+
+        ChargeSessionDto chargeSessionDtoOne = new ChargeSessionDto(CHARGE_SESSION_ONE, "session-one", 1000L, null, null, VEHICLE_ID, CHARGE_POINT_ID);
+        ChargeSessionDto chargeSessionDtoTwo = new ChargeSessionDto(CHARGE_SESSION_TWO, "session-two", 2000L, null, null, VEHICLE_ID, CHARGE_POINT_ID);
+
+        // Repository is asked for limit + 1 records
+        when(chargeSessionListRepository.findDtoPageForVehicle(VEHICLE_ID, ChargeSessionFilter.NONE, SortParameterEnum.END_TIME_ASC, null, 2))
+                .thenReturn(List.of(chargeSessionDtoOne, chargeSessionDtoTwo));
 
         // when
-        List<ChargeSessionDto> chargeSessionDtoList = serviceUnderTest.getChargeSessionsForVehicleSorted(VEHICLE_ID, SortParameterEnum.START_TIME_ASC);
+        ChargeSessionPageDto page = serviceUnderTest.getChargeSessionsForVehicleSorted(VEHICLE_ID, ChargeSessionFilter.NONE, SortParameterEnum.END_TIME_ASC, null, 1);
 
         // then
-        assertEquals(0, chargeSessionDtoList.size());
+        assertEquals(1, page.getChargeSessions().size());
+        KeysetCursor nextCursor = KeysetCursor.decode(page.getNextCursor(), SortParameterEnum.END_TIME_ASC);
+        assertNull(nextCursor.getSortKey());
+        assertEquals(CHARGE_SESSION_ONE, nextCursor.getId());
 
     }
 
@@ -109,7 +169,7 @@ public class ChargeSessionServiceTest {
                 ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_VEHICLE, new String[] { String.valueOf(VEHICLE_ID) }));
 
         // when & then
-        assertThatThrownBy(() -> serviceUnderTest.getChargeSessionsForVehicleSorted(10L, SortParameterEnum.START_TIME_ASC))
+        assertThatThrownBy(() -> serviceUnderTest.getChargeSessionsForVehicleSorted(10L, ChargeSessionFilter.NONE, SortParameterEnum.START_TIME_ASC, null, 10))
                 .isInstanceOf(ApplicationException.class)
                 .hasMessage(String.format(
                         ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_VEHICLE.getMessage(), VEHICLE_ID));
@@ -120,14 +180,10 @@ public class ChargeSessionServiceTest {
     void testGetChargeSessionById() {
 
         // given
-        ChargeSession chargeSession = spy(ChargeSession.class);
-        chargeSession.setId(CHARGE_SESSION_ONE);
         ChargeSessionDto chargeSessionDto = spy(ChargeSessionDto.class);
         chargeSessionDto.setId(CHARGE_SESSION_ONE);
-        Vehicle vehicle = mock(Vehicle.class);
 
-        when(chargeSessionListRepository.findById(any())).thenReturn(Optional.of(chargeSession));
-        when(chargeSessionConverter.convert(chargeSession)).thenReturn(chargeSessionDto);
+        when(chargeSessionListRepository.findDtoById(any())).thenReturn(Optional.of(chargeSessionDto));
 
         // when
         chargeSessionDto = serviceUnderTest.getChargeSessionById(CHARGE_SESSION_ONE);
@@ -140,12 +196,7 @@ public class ChargeSessionServiceTest {
     void testGetChargeSessionById_error_RECORD_NOT_FOUND_FOR_CHARGE_SESSION() {
 
         // given
-        ChargeSession chargeSession = spy(ChargeSession.class);
-        chargeSession.setId(CHARGE_SESSION_ONE);
-
-        when(chargeSessionListRepository.findById(any())).thenThrow(
-                new ApplicationException(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_CHARGE_SESSION,
-                    new String[] { String.valueOf(CHARGE_SESSION_ONE) }));
+        when(chargeSessionListRepository.findDtoById(any())).thenReturn(Optional.empty());
 
         // when & then
         assertThatThrownBy(() -> serviceUnderTest.getChargeSessionById(CHARGE_SESSION_ONE))
@@ -172,8 +223,8 @@ public class ChargeSessionServiceTest {
         vehicle.setBatteryCapacityKwh(94.5);
         vehicle.setBatteryLevelPercent(20.0);
         chargeSessionNoEndTime.setVehicle(vehicle);
-        vehicle.setChargeSessions(List.of(chargeSessionNoEndTime));
         when(vehicleRepository.findById(any())).thenReturn(Optional.of(vehicle));
+        when(chargeSessionListRepository.findFirstByVehicleIdAndEndTimeIsNull(VEHICLE_ID)).thenReturn(Optional.of(chargeSessionNoEndTime));
         when(chargePointRepository.findById(any())).thenReturn(Optional.of(chargePoint));
 
         ChargeSession chargeSessionNow = spy(ChargeSession.class);
@@ -189,6 +240,32 @@ public class ChargeSessionServiceTest {
 
         // then
         assertEquals(CHARGE_SESSION_ONE, chargeSessionDto.getId());
+
+        // Dangling session ended with the default cost
+        assertNotNull(chargeSessionNoEndTime.getEndTime());
+        assertEquals(ChargeSessionService.MINIMUM_CONNECTION_FEE, chargeSessionNoEndTime.getTotalCost());
+    }
+
+    @Test
+    void testCreateChargeSession_error_CONCURRENT_CHARGE_SESSION_CHANGE() {
+
+        // given another node inserted an open session for the vehicle after it was looked up
+        Vehicle vehicle = spy(Vehicle.class);
+        vehicle.setId(VEHICLE_ID);
+        ChargePoint chargePoint = spy(ChargePoint.class);
+        chargePoint.setId(CHARGE_POINT_ID);
+        when(vehicleRepository.findById(any())).thenReturn(Optional.of(vehicle));
+        when(chargeSessionListRepository.findFirstByVehicleIdAndEndTimeIsNull(VEHICLE_ID)).thenReturn(Optional.empty());
+        when(chargePointRepository.findById(any())).thenReturn(Optional.of(chargePoint));
+        doNothing().doThrow(new DataIntegrityViolationException("charge_session_one_open_per_vehicle_idx"))
+                .when(chargeSessionListRepository).flush();
+
+        // when & then
+        assertThatThrownBy(() -> serviceUnderTest.createChargeSession(VEHICLE_ID, CHARGE_POINT_ID))
+                .isInstanceOf(ApplicationException.class)
+                .hasMessage(String.format(
+                        ApplicationException.ErrorCode.CONCURRENT_CHARGE_SESSION_CHANGE.getMessage(), List.of(VEHICLE_ID)));
+        verify(vehicleLocks).lockUntilTransactionCompletes(List.of(VEHICLE_ID));
     }
 
     @Test
@@ -209,6 +286,7 @@ public class ChargeSessionServiceTest {
         vehicle.setBatteryLevelPercent(20.0);
         chargeSession.setVehicle(vehicle);
 
+        when(chargeSessionListRepository.findDtoById(any())).thenReturn(Optional.of(new ChargeSessionDto()));
         when(chargeSessionListRepository.findById(any())).thenReturn(Optional.of(chargeSession));
 
         // when
@@ -216,7 +294,198 @@ public class ChargeSessionServiceTest {
 
         // then
         verify(chargeSessionListRepository, times(1)).save(any());
+
+        // Session counted in its day and month rollup
+        ArgumentCaptor<RollupDeltas> rollupDeltas = ArgumentCaptor.forClass(RollupDeltas.class);
+        verify(vehicleChargeSummaryService).record(rollupDeltas.capture());
+        assertEquals(2, rollupDeltas.getValue().size());
+    }
+
+    @Test
+    void updateChargeSession_already_ended_is_noop() {
+
+        // given
+        ChargeSessionDto endedSession = new ChargeSessionDto();
+        endedSession.setId(CHARGE_SESSION_ONE);
+        endedSession.setEndTime(Instant.now().minus(2, ChronoUnit.SECONDS).toEpochMilli());
+        endedSession.setTotalCost(new BigDecimal("2.50"));
+
+        when(chargeSessionListRepository.findDtoById(any())).thenReturn(Optional.of(endedSession));
+
+        // when
+        serviceUnderTest.updateChargeSession(CHARGE_SESSION_ONE);
+
+        // then neither the entity is loaded nor the cost recalculated
+        verify(chargeSessionListRepository, never()).findById(any());
+        verify(chargeSessionListRepository, never()).save(any());
+        verifyNoInteractions(vehicleChargeSummaryService);
+        assertEquals(0, meterRegistry.get(ChargeSessionMetrics.COST_CALCULATION).tag("cost", "calculated").timer().count());
+    }
+
+    @Test
+    void updateChargeSession_conflict_retried_and_finds_session_ended() {
+
+        // given another request ends the session between the read and the write of the first attempt
+        ChargeSession chargeSession = openChargeSession();
+
+        when(chargeSessionListRepository.findDtoById(any())).thenReturn(Optional.of(new ChargeSessionDto()));
+        when(chargeSessionListRepository.findById(any())).thenReturn(Optional.of(chargeSession));
+        when(chargeSessionListRepository.save(any())).thenThrow(new ObjectOptimisticLockingFailureException(ChargeSession.class, CHARGE_SESSION_ONE));
+
+        // when
+        serviceUnderTest.updateChargeSession(CHARGE_SESSION_ONE);
+
+        // then the second attempt reads the ended session and does not end it again
+        verify(chargeSessionListRepository, times(2)).findById(CHARGE_SESSION_ONE);
+        verify(chargeSessionListRepository, times(1)).save(any());
+        verifyNoInteractions(vehicleChargeSummaryService);
+    }
+
+    @Test
+    void updateChargeSession_error_CHARGE_SESSION_UPDATE_CONFLICT() {
+
+        // given every attempt conflicts
+        when(chargeSessionListRepository.findDtoById(any())).thenReturn(Optional.of(new ChargeSessionDto()));
+        when(chargeSessionListRepository.findById(any())).thenAnswer(invocation -> Optional.of(openChargeSession()));
+        when(chargeSessionListRepository.save(any())).thenThrow(new ObjectOptimisticLockingFailureException(ChargeSession.class, CHARGE_SESSION_ONE));
+
+        // when & then
+        assertThatThrownBy(() -> serviceUnderTest.updateChargeSession(CHARGE_SESSION_ONE))
+                .isInstanceOf(ApplicationException.class)
+                .hasMessage(String.format(
+                        ApplicationException.ErrorCode.CHARGE_SESSION_UPDATE_CONFLICT.getMessage(), 3));
+        verify(chargeSessionListRepository, times(3)).save(any());
+    }
+
+    @Test
+    void updateChargeSession_write_behind_appends_to_journal() {
+
+        // given
+        when(chargeSessionListRepository.findDtoById(any())).thenReturn(Optional.of(new ChargeSessionDto()));
+        when(chargeSessionEndJournal.isEnabled()).thenReturn(true);
+        when(chargeSessionEndJournal.append(eq(CHARGE_SESSION_ONE), anyLong())).thenReturn(true);
+
+        // when
+        serviceUnderTest.updateChargeSession(CHARGE_SESSION_ONE);
+
+        // then the session is ended later by the journal flusher
+        verify(chargeSessionEndJournal).append(eq(CHARGE_SESSION_ONE), anyLong());
+        verify(chargeSessionListRepository, never()).findById(any());
+        verifyNoInteractions(vehicleChargeSummaryService);
+    }
+
+    @Test
+    void applyEndEvents_ends_open_sessions_at_accepted_time() {
+
+        // given
+        ChargeSession openSession = openChargeSession();
+        long endTime = openSession.getStartTime() + 2000L;
+        ChargeSession endedSession = openChargeSession();
+        endedSession.setId(CHARGE_SESSION_TWO);
+        endedSession.setEndTime(endTime);
+        endedSession.setTotalCost(new BigDecimal("2.50"));
+
+        when(chargeSessionListRepository.findAllWithAssociationsById(any())).thenReturn(List.of(openSession, endedSession));
+
+        // when
+        serviceUnderTest.applyEndEvents(List.of(new EndEvent(CHARGE_SESSION_ONE, endTime), new EndEvent(CHARGE_SESSION_TWO, endTime + 1000L)));
+
+        // then
+        assertEquals(endTime, openSession.getEndTime());
+        assertNotNull(openSession.getTotalCost());
+        assertEquals(endTime, endedSession.getEndTime());
+        assertEquals(new BigDecimal("2.50"), endedSession.getTotalCost());
+        ArgumentCaptor<RollupDeltas> rollupDeltas = ArgumentCaptor.forClass(RollupDeltas.class);
+        verify(vehicleChargeSummaryService).record(rollupDeltas.capture());
+        assertEquals(2, rollupDeltas.getValue().size());
     }
 
+    @Test
+    void testCreateChargeSessions() {
+
+        // given
+        ChargePoint chargePoint = spy(ChargePoint.class);
+        chargePoint.setId(CHARGE_POINT_ID);
+        chargePoint.setChargingPowerKw(50.0);
+
+        Vehicle vehicle = spy(Vehicle.class);
+        vehicle.setId(VEHICLE_ID);
+        vehicle.setBatteryCapacityKwh(94.5);
+        vehicle.setBatteryLevelPercent(20.0);
+
+        ChargeSession chargeSessionNoEndTime = new ChargeSession(vehicle, chargePoint);
+        chargeSessionNoEndTime.setId(CHARGE_SESSION_TWO);
+
+        when(vehicleRepository.findAllById(any())).thenReturn(List.of(vehicle));
+        when(chargePointRepository.findAllById(any())).thenReturn(List.of(chargePoint));
+        when(chargeSessionListRepository.findByVehicleIdInAndEndTimeIsNull(any())).thenReturn(List.of(chargeSessionNoEndTime));
+        when(chargeSessionListRepository.saveAll(any())).thenAnswer(invocation -> {
+            Iterable<ChargeSession> chargeSessions = invocation.getArgument(0);
+            chargeSessions.forEach(chargeSession -> chargeSession.setId(CHARGE_SESSION_ONE));
+            return chargeSessions;
+        });
+
+        List<ChargeSessionCreateDto> chargeSessionCreateDtos = List.of(
+                new ChargeSessionCreateDto(VEHICLE_ID, CHARGE_POINT_ID),
+                new ChargeSessionCreateDto(VEHICLE_ID, null),
+                new ChargeSessionCreateDto(9999L, CHARGE_POINT_ID));
+
+        // when
+        List<ChargeSessionBatchResultDto> results = serviceUnderTest.createChargeSessions(chargeSessionCreateDtos);
+
+        // then
+        assertEquals(3, results.size());
+        assertEquals(201, results.get(0).getStatus());
+        assertEquals(CHARGE_SESSION_ONE, results.get(0).getId());
+        assertEquals(400, results.get(1).getStatus());
+        assertEquals(ApplicationException.ErrorCode.SAVE_SESSION_INCOMPLETE.getApplicationCode(), results.get(1).getApplicationCode());
+        assertEquals(404, results.get(2).getStatus());
+        assertEquals(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_VEHICLE.getApplicationCode(), results.get(2).getApplicationCode());
+
+        // Dangling session ended with the default cost
+        assertNotNull(chargeSessionNoEndTime.getEndTime());
+        assertEquals(ChargeSessionService.MINIMUM_CONNECTION_FEE, chargeSessionNoEndTime.getTotalCost());
+    }
+
+    @Test
+    void testEndChargeSessions() {
+
+        // given
+        ChargePoint chargePoint = spy(ChargePoint.class);
+        chargePoint.setId(CHARGE_POINT_ID);
+        chargePoint.setChargingPowerKw(50.0);
+
+        Vehicle vehicle = spy(Vehicle.class);
+        vehicle.setId(VEHICLE_ID);
+        vehicle.setBatteryCapacityKwh(94.5);
+        vehicle.setBatteryLevelPercent(20.0);
+
+        ChargeSession chargeSession = new ChargeSession(vehicle, chargePoint);
+        chargeSession.setId(CHARGE_SESSION_ONE);
+        chargeSession.setStartTime(Instant.now().minus(4, ChronoUnit.SECONDS).toEpochMilli());
+
+        when(chargeSessionListRepository.findAllWithAssociationsById(any())).thenReturn(List.of(chargeSession));
+
+        // when
+        List<ChargeSessionBatchResultDto> results = serviceUnderTest.endChargeSessions(List.of(CHARGE_SESSION_ONE, CHARGE_SESSION_TWO));
+
+        // then
+        assertEquals(204, results.get(0).getStatus());
+        assertEquals(404, results.get(1).getStatus());
+        assertEquals(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_CHARGE_SESSION.getApplicationCode(), results.get(1).getApplicationCode());
+        assertNotNull(chargeSession.getEndTime());
+        assertNotNull(chargeSession.getTotalCost());
+        assertEquals(1, meterRegistry.get(ChargeSessionMetrics.COST_CALCULATION).tag("cost", "calculated").timer().count());
+        verify(chargeSessionListRepository, times(1)).saveAll(any());
+    }
+
+    private static ChargeSession openChargeSession() {
+        Vehicle vehicle = new Vehicle("22-WW-12345", Vehicle.Status.ACTIVE, 94.5, 20.0);
+        vehicle.setId(VEHICLE_ID);
+        ChargeSession chargeSession = new ChargeSession(vehicle, ChargePoint.createChargePoint("charger-model-x123", 50.0));
+        chargeSession.setId(CHARGE_SESSION_ONE);
+        chargeSession.setStartTime(Instant.now().minus(4, ChronoUnit.SECONDS).toEpochMilli());
+        return chargeSession;
+    }
 
 }
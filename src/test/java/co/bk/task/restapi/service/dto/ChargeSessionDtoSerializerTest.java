@@ -0,0 +1,69 @@
+package co.bk.task.restapi.service.dto;
+
+import co.bk.task.restapi.config.ApplicationConfig;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import net.jqwik.api.Example;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.constraints.BigRange;
+import net.jqwik.api.constraints.Scale;
+import net.jqwik.api.constraints.WithNull;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the hand-written serializer writes exactly what Jackson's bean serializer wrote before it, nulls included.
+ */
+class ChargeSessionDtoSerializerTest {
+
+    private final ObjectMapper objectMapper = new ApplicationConfig().defaultObjectMapper();
+
+    // The same mapper with ChargeSessionDto serialized by reflection, as before ChargeSessionDtoSerializer
+    private final ObjectMapper beanObjectMapper = new ApplicationConfig().defaultObjectMapper()
+            .addMixIn(ChargeSessionDto.class, BeanSerialized.class);
+
+    @JsonSerialize(using = JsonSerializer.None.class)
+    private interface BeanSerialized {
+    }
+
+    @Property(tries = 1000, seed = "20241018")
+    void serialize_matchesBeanSerializer(
+            @ForAll @WithNull(0.2) Long id,
+            @ForAll @WithNull(0.2) String sessionId,
+            @ForAll @WithNull(0.2) Long startTime,
+            @ForAll @WithNull(0.2) Long endTime,
+            @ForAll @WithNull(0.2) @Scale(8) @BigRange(min = "-100000", max = "100000") BigDecimal totalCost,
+            @ForAll @WithNull(0.2) Long vehicleId,
+            @ForAll @WithNull(0.2) Long chargePointId) throws Exception {
+
+        ChargeSessionDto chargeSessionDto = new ChargeSessionDto(id, sessionId, startTime, endTime, totalCost, vehicleId, chargePointId);
+
+        assertEquals(beanObjectMapper.writeValueAsString(chargeSessionDto), objectMapper.writeValueAsString(chargeSessionDto));
+    }
+
+    @Example
+    void serialize_page_with_nulls() throws Exception {
+
+        ChargeSessionPageDto page = new ChargeSessionPageDto(List.of(
+                new ChargeSessionDto(20L, "0b0ce3b2-fc7c-4a8a-9a5c-3a1c0e0b6f11", 1691848800000L, 1691856000000L, new BigDecimal("11.00"), 10L, 1L),
+                new ChargeSessionDto(21L, null, 1691859600000L, null, null, 10L, 1L)), null);
+
+        String expected = "{\"chargeSessions\":["
+                + "{\"id\":20,\"sessionId\":\"0b0ce3b2-fc7c-4a8a-9a5c-3a1c0e0b6f11\",\"startTime\":1691848800000,\"endTime\":1691856000000,\"totalCost\":11.00,\"vehicleId\":10,\"chargePointId\":1},"
+                + "{\"id\":21,\"sessionId\":null,\"startTime\":1691859600000,\"endTime\":null,\"totalCost\":null,\"vehicleId\":10,\"chargePointId\":1}"
+                + "],\"nextCursor\":null}";
+        assertEquals(expected, objectMapper.writeValueAsString(page));
+        assertEquals(expected, beanObjectMapper.writeValueAsString(page));
+    }
+
+    @Example
+    void serialize_date_utc() throws Exception {
+        assertEquals("\"2023-09-15T21:44:59.228Z\"", objectMapper.writeValueAsString(new Date(1694814299228L)));
+    }
+}
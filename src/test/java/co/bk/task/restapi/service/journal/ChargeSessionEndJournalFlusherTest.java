@@ -0,0 +1,160 @@
+package co.bk.task.restapi.service.journal;
+
+import co.bk.task.restapi.model.ChargePoint;
+import co.bk.task.restapi.model.ChargeSession;
+import co.bk.task.restapi.model.Vehicle;
+import co.bk.task.restapi.repository.ChargePointRepository;
+import co.bk.task.restapi.repository.ChargeSessionListRepository;
+import co.bk.task.restapi.repository.VehicleRepository;
+import co.bk.task.restapi.service.ChargeSessionService;
+import co.bk.task.restapi.service.dto.ChargeSessionDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Write-behind mode: ends are acknowledged from the journal and applied by the flusher (flushed explicitly here, the
+ * background interval is too long to interfere).
+ */
+@SpringBootTest(properties = { "application.endJournal.enabled=true", "application.endJournal.flushInterval=1h" })
+public class ChargeSessionEndJournalFlusherTest {
+
+    @Autowired
+    private ChargeSessionService chargeSessionService;
+
+    @Autowired
+    private ChargeSessionEndJournal chargeSessionEndJournal;
+
+    @Autowired
+    private ChargeSessionEndJournalFlusher chargeSessionEndJournalFlusher;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private ChargePointRepository chargePointRepository;
+
+    @Autowired
+    private ChargeSessionListRepository chargeSessionListRepository;
+
+    @DynamicPropertySource
+    static void journalPath(DynamicPropertyRegistry registry) throws IOException {
+        registry.add("application.endJournal.path", () -> {
+            try {
+                return Files.createTempDirectory("restapi-journal").resolve("charge-session-end.journal").toString();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    void updateChargeSession_applied_by_flusher() {
+
+        // given
+        ChargeSessionDto chargeSession = createChargeSession("22-JJ-11111");
+
+        // when
+        chargeSessionService.updateChargeSession(chargeSession.getId());
+
+        // then accepted, and read as ended without a cost, but not applied until the flusher runs
+        long acceptedEndTime = chargeSessionEndJournal.pendingEndTime(chargeSession.getId()).orElseThrow();
+        ChargeSessionDto pending = chargeSessionService.getChargeSessionById(chargeSession.getId());
+        assertEquals(acceptedEndTime, pending.getEndTime());
+        assertNull(pending.getTotalCost());
+        assertNull(chargeSessionListRepository.findById(chargeSession.getId()).orElseThrow().getEndTime());
+
+        chargeSessionEndJournalFlusher.flush();
+
+        ChargeSessionDto ended = chargeSessionService.getChargeSessionById(chargeSession.getId());
+        assertEquals(acceptedEndTime, ended.getEndTime());
+        assertNotNull(ended.getTotalCost());
+        assertTrue(chargeSessionEndJournal.pendingEndTime(chargeSession.getId()).isEmpty());
+        assertEquals(0, chargeSessionEndJournal.pendingCount());
+    }
+
+    @Test
+    void updateChargeSession_repeated_while_pending_is_noop() throws InterruptedException {
+
+        // given an end accepted by the journal and not yet applied
+        ChargeSessionDto chargeSession = createChargeSession("22-JJ-33333");
+        int pendingCount = chargeSessionEndJournal.pendingCount();
+        chargeSessionService.updateChargeSession(chargeSession.getId());
+        long acceptedEndTime = chargeSessionEndJournal.pendingEndTime(chargeSession.getId()).orElseThrow();
+
+        // when the charger gateway repeats the request
+        Thread.sleep(5);
+        chargeSessionService.updateChargeSession(chargeSession.getId());
+
+        // then one event is journaled and the session is ended at the first accepted time
+        assertEquals(pendingCount + 1, chargeSessionEndJournal.pendingCount());
+        assertEquals(acceptedEndTime, chargeSessionEndJournal.pendingEndTime(chargeSession.getId()).orElseThrow());
+
+        chargeSessionEndJournalFlusher.flush();
+        assertEquals(acceptedEndTime, chargeSessionService.getChargeSessionById(chargeSession.getId()).getEndTime());
+    }
+
+    @Test
+    void createChargeSession_ends_pending_session_as_requested() {
+
+        // given an end accepted by the journal and not yet applied
+        ChargeSessionDto chargeSession = createChargeSession("22-JJ-22222");
+        chargeSessionService.updateChargeSession(chargeSession.getId());
+        long acceptedEndTime = chargeSessionEndJournal.pendingEndTime(chargeSession.getId()).orElseThrow();
+
+        // when the vehicle starts its next session
+        ChargeSessionDto next = chargeSessionService.createChargeSession(chargeSession.getVehicleId(), chargeSession.getChargePointId());
+
+        // then the first session is ended at the accepted time with its calculated cost, not the default cost
+        ChargeSession ended = chargeSessionListRepository.findById(chargeSession.getId()).orElseThrow();
+        assertEquals(acceptedEndTime, ended.getEndTime());
+        assertTrue(ended.getTotalCost().compareTo(ChargeSessionService.MINIMUM_CONNECTION_FEE) > 0);
+
+        // and applying the event afterwards leaves it as it is
+        chargeSessionEndJournalFlusher.flush();
+        assertEquals(ended.getVersion(), chargeSessionListRepository.findById(chargeSession.getId()).orElseThrow().getVersion());
+        assertNull(chargeSessionService.getChargeSessionById(next.getId()).getEndTime());
+    }
+
+    @Test
+    void endChargeSessions_ends_pending_session_as_requested() throws InterruptedException {
+
+        // given an end accepted by the journal and not yet applied
+        ChargeSessionDto chargeSession = createChargeSession("22-JJ-44444");
+        chargeSessionService.updateChargeSession(chargeSession.getId());
+        long acceptedEndTime = chargeSessionEndJournal.pendingEndTime(chargeSession.getId()).orElseThrow();
+
+        // when a charge point backend replays the stop event in a batch
+        Thread.sleep(5);
+        chargeSessionService.endChargeSessions(List.of(chargeSession.getId()));
+
+        // then the session is ended at the accepted time, and applying the event afterwards leaves it as it is
+        ChargeSession ended = chargeSessionListRepository.findById(chargeSession.getId()).orElseThrow();
+        assertEquals(acceptedEndTime, ended.getEndTime());
+        chargeSessionEndJournalFlusher.flush();
+        assertEquals(ended.getVersion(), chargeSessionListRepository.findById(chargeSession.getId()).orElseThrow().getVersion());
+    }
+
+    private ChargeSessionDto createChargeSession(String licensePlate) {
+        Vehicle vehicle = vehicleRepository.save(Vehicle.createVehicle(licensePlate));
+        ChargePoint chargePoint = chargePointRepository.save(ChargePoint.createChargePoint("charger-model-x123", 50.0));
+        ChargeSessionDto chargeSessionDto = chargeSessionService.createChargeSession(vehicle.getId(), chargePoint.getId());
+
+        // Started an hour ago, so the calculated cost is well above the default cost
+        ChargeSession chargeSession = chargeSessionListRepository.findById(chargeSessionDto.getId()).orElseThrow();
+        chargeSession.setStartTime(System.currentTimeMillis() - 3_600_000L);
+        chargeSessionListRepository.save(chargeSession);
+        return chargeSessionDto;
+    }
+}
@@ -0,0 +1,107 @@
+package co.bk.task.restapi.service.journal;
+
+import co.bk.task.restapi.service.journal.ChargeSessionEndJournal.Batch;
+import co.bk.task.restapi.service.journal.ChargeSessionEndJournal.EndEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChargeSessionEndJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void pending_events_replayed_after_reopen() throws Exception {
+
+        // given
+        ChargeSessionEndJournal journal = open(DataSize.ofKilobytes(4));
+        assertTrue(journal.append(20L, 1000L));
+        assertTrue(journal.append(21L, 2000L));
+        journal.markApplied(journal.nextBatch(1));
+        assertTrue(journal.append(22L, 3000L));
+        journal.close();
+
+        // when
+        ChargeSessionEndJournal reopened = open(DataSize.ofKilobytes(4));
+
+        // then only the events not marked applied are pending
+        assertEquals(2, reopened.pendingCount());
+        assertEquals(List.of(21L, 22L), chargeSessionIds(reopened.nextBatch(10)));
+        assertEquals(2000L, reopened.pendingEndTime(21L).getAsLong());
+        assertTrue(reopened.pendingEndTime(20L).isEmpty());
+    }
+
+    @Test
+    void torn_record_ends_replay() throws Exception {
+
+        // given
+        ChargeSessionEndJournal journal = open(DataSize.ofKilobytes(4));
+        journal.append(20L, 1000L);
+        journal.append(21L, 2000L);
+        journal.close();
+
+        // when the checksum of the second record is corrupted, as by a crash while writing it
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("end.journal").toFile(), "rw")) {
+            file.seek(ChargeSessionEndJournal.HEADER_SIZE + ChargeSessionEndJournal.RECORD_SIZE + 20);
+            file.writeInt(0);
+        }
+        ChargeSessionEndJournal reopened = open(DataSize.ofKilobytes(4));
+
+        // then
+        assertEquals(List.of(20L), chargeSessionIds(reopened.nextBatch(10)));
+    }
+
+    @Test
+    void rewound_once_all_applied() throws Exception {
+
+        // given a journal with room for two records
+        ChargeSessionEndJournal journal = open(DataSize.ofBytes(ChargeSessionEndJournal.HEADER_SIZE + 2 * ChargeSessionEndJournal.RECORD_SIZE));
+        assertTrue(journal.append(20L, 1000L));
+        assertTrue(journal.append(21L, 2000L));
+        assertFalse(journal.append(22L, 3000L));
+        assertEquals(1, journal.fullCount());
+
+        // when
+        journal.markApplied(journal.nextBatch(10));
+
+        // then records of the previous epoch are not replayed
+        assertTrue(journal.append(23L, 4000L));
+        journal.close();
+        ChargeSessionEndJournal reopened = open(DataSize.ofKilobytes(4));
+        assertEquals(List.of(23L), chargeSessionIds(reopened.nextBatch(10)));
+    }
+
+    @Test
+    void append_of_pending_session_keeps_first_event() throws Exception {
+
+        // given a journal with room for one record
+        ChargeSessionEndJournal journal = open(DataSize.ofBytes(ChargeSessionEndJournal.HEADER_SIZE + ChargeSessionEndJournal.RECORD_SIZE));
+        assertTrue(journal.append(20L, 1000L));
+
+        // when
+        assertTrue(journal.append(20L, 2000L));
+
+        // then
+        assertEquals(1, journal.pendingCount());
+        assertEquals(1000L, journal.pendingEndTime(20L).getAsLong());
+    }
+
+    private ChargeSessionEndJournal open(DataSize capacity) {
+        ChargeSessionEndJournal journal = new ChargeSessionEndJournal(directory.resolve("end.journal"), capacity);
+        journal.open();
+        return journal;
+    }
+
+    private static List<Long> chargeSessionIds(Batch batch) {
+        return batch.getEndEvents().stream().map(EndEvent::getChargeSessionId).toList();
+    }
+}
@@ -0,0 +1,174 @@
+package co.bk.task.restapi.service.tariff;
+
+import net.jqwik.api.Example;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.constraints.LongRange;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the fixed-point engine against the BigDecimal calculation it replaced in ChargeSessionService. Inputs follow
+ * the database columns: charging power, battery capacity and battery level with 2 decimal places, cost of power in
+ * 1/10000 Euro. The seed is pinned so a failing case is reproducible.
+ *
+ * Both round HALF_EVEN to micro-cents and must be identical, except where the BigDecimal result lies within
+ * {@link #TIE_TOLERANCE_MICRO_CENTS} of a half micro-cent. There the BigDecimal calculation rounds on binary noise from its
+ * double inputs (e.g. 100 - 99.94 is not exactly 0.06) while the engine rounds the exact tie to even; the two may then
+ * differ by one micro-cent, far below the 2 decimal places persisted.
+ */
+class TariffEngineTest {
+
+    private static final BigDecimal MINIMUM_CONNECTION_FEE = new BigDecimal(1);
+
+    private static final Long MILLISECONDS_IN_HOUR = 60 * 60 * 1000L;
+
+    private static final BigDecimal TIE_TOLERANCE_MICRO_CENTS = new BigDecimal("0.001");
+
+    @Property(tries = 10000, seed = "20241018")
+    void sessionCost_matchesBigDecimalCalculation(
+            @ForAll @LongRange(min = 0, max = 172_800_000L) long durationMillis,
+            @ForAll @LongRange(min = 100, max = 35_000) long chargingPowerCentiKw,
+            @ForAll @LongRange(min = 1_000, max = 20_000) long batteryCapacityCentiKwh,
+            @ForAll @LongRange(min = 0, max = 10_500) long batteryLevelCentiPercent,
+            @ForAll @LongRange(min = 1, max = 20_000) long costOfPowerTenThousandthsPerKwh) {
+
+        double chargingPowerKw = chargingPowerCentiKw / 100d;
+        double batteryCapacityKwh = batteryCapacityCentiKwh / 100d;
+        double batteryLevelPercent = batteryLevelCentiPercent / 100d;
+        double costOfPowerPerKwh = costOfPowerTenThousandthsPerKwh / 10_000d;
+
+        TariffEngine tariffEngine = new TariffEngine(costOfPowerPerKwh);
+        long energyConsumed = tariffEngine.energyConsumedMicroJoules(durationMillis, chargingPowerKw, batteryCapacityKwh, batteryLevelPercent);
+        long actual = tariffEngine.sessionCostMicroCents(energyConsumed);
+
+        BigDecimal expected = bigDecimalCost(durationMillis, chargingPowerKw, batteryCapacityKwh, batteryLevelPercent, costOfPowerPerKwh);
+
+        assertEquivalent(expected, actual);
+    }
+
+    @Example
+    void sessionCost_exactTieRoundsToEven() {
+        TariffEngine tariffEngine = new TariffEngine(0.0025);
+
+        // Battery needs 10.03 kWh × 0.06% = 0.006018 kWh, costing exactly 0.000015045 Euro. Found by the property above.
+        long energyConsumed = tariffEngine.energyConsumedMicroJoules(63L, 343.89, 10.03, 99.94);
+
+        assertEquals(new BigDecimal("1.00001504"), TariffEngine.toEuros(tariffEngine.sessionCostMicroCents(energyConsumed)));
+        assertEquivalent(bigDecimalCost(63L, 343.89, 10.03, 99.94, 0.0025), tariffEngine.sessionCostMicroCents(energyConsumed));
+    }
+
+    @Example
+    void roundToCents_halfUpAsPersisted() {
+        assertEquals(100_000_000L, TariffEngine.roundToCents(100_000_000L));
+        assertEquals(101_000_000L, TariffEngine.roundToCents(100_500_000L));
+        assertEquals(100_000_000L, TariffEngine.roundToCents(100_499_999L));
+        assertEquals(0, new BigDecimal("1.01").compareTo(TariffEngine.toEuros(TariffEngine.roundToCents(101_001_503L))));
+    }
+
+    @Example
+    void sessionCost_minimumConnectionFeeForZeroDuration() {
+        TariffEngine tariffEngine = new TariffEngine(0.50);
+
+        long energyConsumed = tariffEngine.energyConsumedMicroJoules(0, 50.0, 94.5, 20.0);
+
+        assertEquals(0L, energyConsumed);
+        assertEquals(TariffEngine.MINIMUM_CONNECTION_FEE_MICRO_CENTS, tariffEngine.sessionCostMicroCents(energyConsumed));
+    }
+
+    @Example
+    void sessionCost_minimumConnectionFeeWhenBatteryFull() {
+        TariffEngine tariffEngine = new TariffEngine(0.50);
+
+        assertEquals(0L, tariffEngine.energyConsumedMicroJoules(3_600_000L, 50.0, 94.5, 100.0));
+        assertEquals(0L, tariffEngine.energyConsumedMicroJoules(3_600_000L, 50.0, 94.5, 105.0));
+    }
+
+    @Example
+    void sessionCost_limitedByBatteryCapacity() {
+        TariffEngine tariffEngine = new TariffEngine(0.50);
+
+        // 10 hours at 50 kW would deliver 500 kWh but the battery only needs 94.5 kWh × 80% = 75.6 kWh
+        long energyConsumed = tariffEngine.energyConsumedMicroJoules(36_000_000L, 50.0, 94.5, 20.0);
+
+        assertEquals(new BigDecimal("38.80000000"), TariffEngine.toEuros(tariffEngine.sessionCostMicroCents(energyConsumed)));
+    }
+
+    @Example
+    void sessionCost_limitedByDuration() {
+        TariffEngine tariffEngine = new TariffEngine(0.25);
+
+        // 30 minutes at 22 kW delivers 11 kWh
+        long energyConsumed = tariffEngine.energyConsumedMicroJoules(1_800_000L, 22.0, 94.5, 20.0);
+
+        assertEquals(11L * TariffEngine.MICRO_JOULES_PER_KWH, energyConsumed);
+        assertEquals(new BigDecimal("3.75000000"), TariffEngine.toEuros(tariffEngine.sessionCostMicroCents(energyConsumed)));
+    }
+
+    @Example
+    void multiplyDivideHalfEven_roundsTiesToEven() {
+        assertEquals(2L, TariffEngine.multiplyDivideHalfEven(5, 1, 2));
+        assertEquals(4L, TariffEngine.multiplyDivideHalfEven(7, 1, 2));
+        assertEquals(-2L, TariffEngine.multiplyDivideHalfEven(-5, 1, 2));
+        // Product exceeds a long: (2^62 × 10) / 3.6e12
+        assertEquals(12_810_239L, TariffEngine.multiplyDivideHalfEven(1L << 62, 10, TariffEngine.MICRO_JOULES_PER_KWH));
+    }
+
+    @Example
+    void constructor_rejectsCostOfPowerWithMoreThanEightDecimalPlaces() {
+        assertThrows(IllegalArgumentException.class, () -> new TariffEngine(0.123456789));
+    }
+
+    private static void assertEquivalent(BigDecimal expected, long actualMicroCents) {
+
+        BigDecimal expectedMicroCents = expected.movePointRight(TariffEngine.MONEY_SCALE);
+        BigDecimal distanceFromTie = expectedMicroCents.subtract(expectedMicroCents.setScale(0, RoundingMode.FLOOR))
+                .subtract(new BigDecimal("0.5")).abs();
+
+        if (distanceFromTie.compareTo(TIE_TOLERANCE_MICRO_CENTS) < 0) {
+            long difference = expectedMicroCents.setScale(0, RoundingMode.HALF_EVEN).longValueExact() - actualMicroCents;
+            assertTrue(Math.abs(difference) <= 1, "More than one micro-cent from " + expected + ": " + actualMicroCents);
+        } else {
+            assertEquals(expected.setScale(TariffEngine.MONEY_SCALE, RoundingMode.HALF_EVEN), TariffEngine.toEuros(actualMicroCents));
+        }
+    }
+
+    /**
+     * Cost calculation as implemented by ChargeSessionService before the tariff engine.
+     */
+    private static BigDecimal bigDecimalCost(long durationMillis, Double chargingPowerKw, Double batteryCapacity,
+                                             Double batteryLevelPercentAtStart, Double costOfPowerPerKwh) {
+
+        BigDecimal energyConsumedKwh = null;
+        if (batteryLevelPercentAtStart < Double.valueOf("100")) {
+
+            BigDecimal durationChargeSessionInHours = new BigDecimal(durationMillis)
+                    .divide(new BigDecimal(MILLISECONDS_IN_HOUR), new MathContext(18, RoundingMode.HALF_EVEN));
+
+            BigDecimal maxEnergyDeliveredDuringSession = new BigDecimal(chargingPowerKw).multiply(
+                    durationChargeSessionInHours, new MathContext(18, RoundingMode.HALF_EVEN));
+
+            BigDecimal energyRequiredByBatteryToFullyCharge = new BigDecimal(String.valueOf(batteryCapacity * (100 - batteryLevelPercentAtStart) / 100));
+
+            if (energyRequiredByBatteryToFullyCharge.compareTo(maxEnergyDeliveredDuringSession) > 0) {
+                energyConsumedKwh = maxEnergyDeliveredDuringSession;
+            } else {
+                energyConsumedKwh = energyRequiredByBatteryToFullyCharge;
+            }
+
+            BigDecimal costOfPower = energyConsumedKwh.multiply(
+                    new BigDecimal(costOfPowerPerKwh), new MathContext(18, RoundingMode.HALF_EVEN));
+
+            return costOfPower.add(MINIMUM_CONNECTION_FEE);
+
+        } else {
+            return MINIMUM_CONNECTION_FEE;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package co.bk.task.restapi.web;
+
+import co.bk.task.restapi.TestFixtures;
+import co.bk.task.restapi.config.ApplicationConfig;
+import co.bk.task.restapi.model.ChargePoint;
+import co.bk.task.restapi.model.ChargeSession;
+import co.bk.task.restapi.model.Vehicle;
+import co.bk.task.restapi.repository.ChargePointRepository;
+import co.bk.task.restapi.repository.ChargeSessionListRepository;
+import co.bk.task.restapi.repository.VehicleRepository;
+import co.bk.task.restapi.service.dto.ChargeSessionBatchResultDto;
+import co.bk.task.restapi.service.dto.ChargeSessionDto;
+import co.bk.task.restapi.web.api.cmd.ChargeSessionSaveCmd;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * Checks the CBOR and Smile representations carry the same charge sessions as JSON, in fewer bytes, and are cached
+ * under their own ETags.
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+public class BinaryRepresentationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("cborObjectMapper")
+    private ObjectMapper cborObjectMapper;
+
+    @Autowired
+    @Qualifier("smileObjectMapper")
+    private ObjectMapper smileObjectMapper;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private ChargePointRepository chargePointRepository;
+
+    @Autowired
+    private ChargeSessionListRepository chargeSessionListRepository;
+
+    private TestFixtures testFixtures;
+
+    private Vehicle vehicle;
+
+    private ChargePoint chargePoint;
+
+    @BeforeEach
+    void setup() {
+        testFixtures = new TestFixtures(vehicleRepository, chargePointRepository);
+        vehicle = testFixtures.saveVehicle();
+        chargePoint = testFixtures.saveChargePoint();
+        for (int i = 0; i < 3; i++) {
+            ChargeSession chargeSession = ChargeSession.createChargeSession(vehicle, chargePoint, new BigDecimal("12.50"), 2000L + i);
+            chargeSession.setStartTime(1000L + i);
+            chargeSessionListRepository.save(chargeSession);
+        }
+        chargeSessionListRepository.save(new ChargeSession(vehicle, chargePoint));
+    }
+
+    @Test
+    void getAllForVehicle_binary_matches_json() throws Exception {
+
+        // given
+        String path = "/charge-sessions?vehicleId=" + vehicle.getId();
+        ResponseEntity<byte[]> json = get(path, MediaType.APPLICATION_JSON);
+        List<ChargeSessionDto> expected = List.of(objectMapper.readValue(json.getBody(), ChargeSessionDto[].class));
+        assertEquals(4, expected.size());
+
+        // when
+        ResponseEntity<byte[]> cbor = get(path, MediaType.APPLICATION_CBOR);
+        ResponseEntity<byte[]> smile = get(path, ApplicationConfig.APPLICATION_SMILE);
+
+        // then the same sessions, open session's nulls and cost scale included
+        assertEquals(MediaType.APPLICATION_CBOR, cbor.getHeaders().getContentType());
+        assertEquals(expected, List.of(cborObjectMapper.readValue(cbor.getBody(), ChargeSessionDto[].class)));
+        assertTrue(cbor.getBody().length < json.getBody().length);
+
+        assertEquals(ApplicationConfig.APPLICATION_SMILE, smile.getHeaders().getContentType());
+        assertEquals(expected, List.of(smileObjectMapper.readValue(smile.getBody(), ChargeSessionDto[].class)));
+        assertTrue(smile.getBody().length < json.getBody().length);
+    }
+
+    @Test
+    void getChargeDetailRecord_eTag_per_representation() {
+
+        // given
+        String path = "/charge-sessions/" + chargeSessionListRepository.findAll().stream()
+                .filter(chargeSession -> chargeSession.getVehicle().getId().equals(vehicle.getId()))
+                .findFirst().orElseThrow().getId();
+        ResponseEntity<byte[]> json = get(path, MediaType.APPLICATION_JSON);
+        ResponseEntity<byte[]> cbor = get(path, MediaType.APPLICATION_CBOR);
+
+        // then
+        assertNotEquals(json.getHeaders().getETag(), cbor.getHeaders().getETag());
+        assertEquals(List.of(HttpHeaders.ACCEPT), cbor.getHeaders().getVary());
+
+        // and a JSON ETag does not validate the CBOR representation
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_CBOR));
+        headers.setIfNoneMatch(json.getHeaders().getETag());
+        ResponseEntity<byte[]> poll = restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+        assertEquals(HttpStatus.OK, poll.getStatusCode());
+
+        headers.setIfNoneMatch(cbor.getHeaders().getETag());
+        poll = restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+        assertEquals(HttpStatus.NOT_MODIFIED, poll.getStatusCode());
+    }
+
+    @Test
+    void exportForVehicle_cbor_sequence() throws Exception {
+
+        // when
+        ResponseEntity<byte[]> export = get("/charge-sessions/export?vehicleId=" + vehicle.getId(), ApplicationConfig.APPLICATION_CBOR_SEQ);
+
+        // then
+        assertEquals(ApplicationConfig.APPLICATION_CBOR_SEQ, export.getHeaders().getContentType());
+        try (MappingIterator<ChargeSessionDto> chargeSessions = cborObjectMapper.readerFor(ChargeSessionDto.class).readValues(export.getBody())) {
+            List<ChargeSessionDto> exported = chargeSessions.readAll();
+            assertEquals(4, exported.size());
+            assertEquals(1000L, exported.get(0).getStartTime());
+            assertEquals(0, new BigDecimal("12.50").compareTo(exported.get(0).getTotalCost()));
+        }
+    }
+
+    @Test
+    void saveBatch_smile_request_and_response() throws Exception {
+
+        // given
+        Vehicle otherVehicle = testFixtures.saveVehicle();
+        ChargeSessionSaveCmd chargeSessionSaveCmd = new ChargeSessionSaveCmd();
+        chargeSessionSaveCmd.setVehicleId(otherVehicle.getId());
+        chargeSessionSaveCmd.setChargePointId(chargePoint.getId());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(ApplicationConfig.APPLICATION_SMILE);
+        headers.setAccept(List.of(ApplicationConfig.APPLICATION_SMILE));
+
+        // when
+        ResponseEntity<byte[]> response = restTemplate.exchange("/charge-sessions/batch", HttpMethod.POST,
+                new HttpEntity<>(smileObjectMapper.writeValueAsBytes(List.of(chargeSessionSaveCmd)), headers), byte[].class);
+
+        // then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        ChargeSessionBatchResultDto[] results = smileObjectMapper.readValue(response.getBody(), ChargeSessionBatchResultDto[].class);
+        assertEquals(1, results.length);
+        assertEquals(HttpStatus.CREATED.value(), results[0].getStatus());
+    }
+
+    private ResponseEntity<byte[]> get(String path, MediaType mediaType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(mediaType));
+        ResponseEntity<byte[]> response = restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response;
+    }
+}
@@ -111,6 +111,16 @@ public class ChargeSessionControllerIT {
                 .body("application_code", is("RESTAPI-0002"));
     }
 
+    @Test
+    void get_chargeSesssions_for_vehicleId_fail_invalid_filter() {
+
+        Response response = when().get("/charge-sessions?vehicleId=10&status=paused");
+
+        response.then().assertThat()
+                .statusCode(400)
+                .body("application_code", is("RESTAPI-0010"));
+    }
+
     @Test
     void post_create_chargeSesssion_success() {
 
@@ -165,6 +175,30 @@ public class ChargeSessionControllerIT {
                 .body("application_code", is("RESTAPI-0001"));
     }
 
+    @Test
+    void post_create_chargeSesssion_batch_null_item_fails_alone() {
+
+        Vehicle vehicle = vehicleRepository.save(Vehicle.createVehicle("20-WW-11228"));
+        ChargePoint chargePoint = chargePointRepository.save(ChargePoint.createChargePoint("charger-model-x123", 50.0));
+
+        String requestBody = "[null, {"
+                + "\"vehicleId\": \"" + vehicle.getId().toString() + "\","
+                + "\"chargePointId\": \"" + chargePoint.getId().toString() + "\""
+                + "}]";
+
+        Response response = RestAssured.given()
+                .contentType(ContentType.JSON)
+                .body(requestBody)
+                .when()
+                .post("/charge-sessions/batch");
+
+        response.then().assertThat()
+                .statusCode(200)
+                .body("[0].status", is(400))
+                .body("[0].applicationCode", is("RESTAPI-0001"))
+                .body("[1].status", is(201));
+    }
+
     @Test
     void put_chargeSesssion_success() {
 
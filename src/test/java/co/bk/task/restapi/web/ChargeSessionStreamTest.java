@@ -0,0 +1,152 @@
+package co.bk.task.restapi.web;
+
+import co.bk.task.restapi.TestFixtures;
+import co.bk.task.restapi.model.ChargePoint;
+import co.bk.task.restapi.model.Vehicle;
+import co.bk.task.restapi.repository.ChargePointRepository;
+import co.bk.task.restapi.repository.VehicleRepository;
+import co.bk.task.restapi.service.ChargeSessionService;
+import co.bk.task.restapi.service.dto.ChargeSessionDto;
+import co.bk.task.restapi.web.exceptionhandling.ApplicationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * Reads GET /charge-sessions/stream as a client would and checks sessions created and ended are delivered to the
+ * subscribers of their vehicle and charge point only.
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+public class ChargeSessionStreamTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ChargeSessionService chargeSessionService;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private ChargePointRepository chargePointRepository;
+
+    private TestFixtures testFixtures;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private Vehicle vehicle;
+
+    private ChargePoint chargePoint;
+
+    @BeforeEach
+    void setup() {
+        testFixtures = new TestFixtures(vehicleRepository, chargePointRepository);
+        vehicle = testFixtures.saveVehicle();
+        chargePoint = testFixtures.saveChargePoint();
+    }
+
+    @Test
+    void stream_vehicle_receives_created_and_ended() throws Exception {
+
+        // given
+        HttpResponse<Stream<String>> response = subscribe("?vehicleId=" + vehicle.getId());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("text/event-stream"));
+        Iterator<String> lines = response.body().iterator();
+
+        // when
+        ChargeSessionDto chargeSession = chargeSessionService.createChargeSession(vehicle.getId(), chargePoint.getId());
+        chargeSessionService.updateChargeSession(chargeSession.getId());
+
+        // then
+        String created = nextEvent(lines);
+        assertTrue(created.startsWith("event:created\ndata:{\"id\":" + chargeSession.getId() + ","), created);
+        assertTrue(created.contains("\"endTime\":null"), created);
+
+        String ended = nextEvent(lines);
+        assertTrue(ended.startsWith("event:ended\ndata:{\"id\":" + chargeSession.getId() + ","), ended);
+        assertTrue(ended.contains("\"vehicleId\":" + vehicle.getId()), ended);
+        assertFalse(ended.contains("\"endTime\":null"), ended);
+    }
+
+    @Test
+    void stream_chargePoint_ignores_other_charge_points() throws Exception {
+
+        // given
+        HttpResponse<Stream<String>> response = subscribe("?chargePointId=" + chargePoint.getId());
+        Iterator<String> lines = response.body().iterator();
+        ChargePoint otherChargePoint = testFixtures.saveChargePoint();
+        Vehicle otherVehicle = testFixtures.saveVehicle();
+
+        // when
+        chargeSessionService.createChargeSession(otherVehicle.getId(), otherChargePoint.getId());
+        ChargeSessionDto chargeSession = chargeSessionService.createChargeSession(vehicle.getId(), chargePoint.getId());
+
+        // then the first event is the session at the charge point followed
+        String created = nextEvent(lines);
+        assertTrue(created.startsWith("event:created\ndata:{\"id\":" + chargeSession.getId() + ","), created);
+    }
+
+    @Test
+    void stream_invalid_parameters() throws Exception {
+
+        HttpResponse<String> neither = httpClient.send(request(""), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, neither.statusCode());
+        assertTrue(neither.body().contains(ApplicationException.ErrorCode.INVALID_STREAM_PARAMETER.getApplicationCode()));
+
+        HttpResponse<String> both = httpClient.send(request("?vehicleId=" + vehicle.getId() + "&chargePointId=" + chargePoint.getId()),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, both.statusCode());
+
+        HttpResponse<String> unknownVehicle = httpClient.send(request("?vehicleId=99999"), HttpResponse.BodyHandlers.ofString());
+        assertEquals(404, unknownVehicle.statusCode());
+    }
+
+    private HttpResponse<Stream<String>> subscribe(String query) throws Exception {
+        // The response headers are sent once the subscription is registered
+        return httpClient.send(request(query), HttpResponse.BodyHandlers.ofLines());
+    }
+
+    private HttpRequest request(String query) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/charge-sessions/stream" + query))
+                .header("Accept", "text/event-stream")
+                .build();
+    }
+
+    /**
+     * Lines of the next event up to the blank line that ends it, skipping heartbeat comments.
+     */
+    private static String nextEvent(Iterator<String> lines) throws Exception {
+        return CompletableFuture.supplyAsync(() -> {
+            StringBuilder event = new StringBuilder();
+            while (lines.hasNext()) {
+                String line = lines.next();
+                if (line.isEmpty()) {
+                    if (!event.isEmpty()) {
+                        return event.toString();
+                    }
+                } else if (!line.startsWith(":")) {
+                    event.append(event.isEmpty() ? "" : "\n").append(line);
+                }
+            }
+            return event.toString();
+        }).get(10, TimeUnit.SECONDS);
+    }
+}
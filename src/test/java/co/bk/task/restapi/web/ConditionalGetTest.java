@@ -0,0 +1,213 @@
+package co.bk.task.restapi.web;
+
+import co.bk.task.restapi.TestFixtures;
+import co.bk.task.restapi.model.ChargePoint;
+import co.bk.task.restapi.model.ChargeSession;
+import co.bk.task.restapi.model.Vehicle;
+import co.bk.task.restapi.repository.ChargePointRepository;
+import co.bk.task.restapi.repository.ChargeSessionListRepository;
+import co.bk.task.restapi.repository.VehicleRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * Checks ETags of charge session resources and that a poll with a matching If-None-Match returns 304 after a single query.
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+public class ConditionalGetTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private ChargePointRepository chargePointRepository;
+
+    @Autowired
+    private ChargeSessionListRepository chargeSessionListRepository;
+
+    private TestFixtures testFixtures;
+
+    private Statistics statistics;
+
+    private Vehicle vehicle;
+
+    private ChargeSession chargeSession;
+
+    @BeforeEach
+    void setup() {
+        testFixtures = new TestFixtures(vehicleRepository, chargePointRepository);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        vehicle = testFixtures.saveVehicle();
+        ChargePoint chargePoint = testFixtures.saveChargePoint();
+        chargeSession = chargeSessionListRepository.save(new ChargeSession(vehicle, chargePoint));
+    }
+
+    @Test
+    void getChargeSession_unchanged_returnsNotModified() {
+
+        // given
+        ResponseEntity<String> first = get("/charge-sessions/" + chargeSession.getId(), null);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        String eTag = first.getHeaders().getETag();
+        assertNotNull(eTag);
+        statistics.clear();
+
+        // when
+        ResponseEntity<String> poll = get("/charge-sessions/" + chargeSession.getId(), eTag);
+
+        // then
+        assertEquals(HttpStatus.NOT_MODIFIED, poll.getStatusCode());
+        assertEquals(eTag, poll.getHeaders().getETag());
+        assertNull(poll.getBody());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getChargeSession_ended_returnsNewETag() {
+
+        // given
+        String eTag = get("/charge-sessions/" + chargeSession.getId(), null).getHeaders().getETag();
+
+        // when
+        restTemplate.put("/charge-sessions/" + chargeSession.getId(), "{}");
+        ResponseEntity<String> poll = get("/charge-sessions/" + chargeSession.getId(), eTag);
+
+        // then
+        assertEquals(HttpStatus.OK, poll.getStatusCode());
+        assertNotEquals(eTag, poll.getHeaders().getETag());
+    }
+
+    @Test
+    void getChargeSession_updatedWithoutNewerDateUpdated_returnsNewETag() {
+
+        // given
+        String eTag = get("/charge-sessions/" + chargeSession.getId(), null).getHeaders().getETag();
+
+        // when the session is written again within the same millisecond, leaving dateUpdated unchanged
+        chargeSession.setTotalCost(new BigDecimal("12.50"));
+        chargeSession = chargeSessionListRepository.save(chargeSession);
+        ResponseEntity<String> poll = get("/charge-sessions/" + chargeSession.getId(), eTag);
+
+        // then
+        assertEquals(HttpStatus.OK, poll.getStatusCode());
+        assertNotEquals(eTag, poll.getHeaders().getETag());
+    }
+
+    @Test
+    void getAllForVehicle_unchanged_returnsNotModifiedWithoutLoadingPage() {
+
+        // given
+        String url = "/charge-sessions?vehicleId=" + vehicle.getId() + "&sort=-startTime";
+        String eTag = get(url, null).getHeaders().getETag();
+        assertNotNull(eTag);
+        statistics.clear();
+
+        // when
+        ResponseEntity<String> poll = get(url, eTag);
+
+        // then only the version stamp query reaches the database (the vehicle comes from the second-level cache)
+        assertEquals(HttpStatus.NOT_MODIFIED, poll.getStatusCode());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void getAllForVehicle_sessionEndedOrCreated_returnsNewETag() {
+
+        // given
+        String url = "/charge-sessions?vehicleId=" + vehicle.getId();
+        String created = get(url, null).getHeaders().getETag();
+
+        // when
+        restTemplate.put("/charge-sessions/" + chargeSession.getId(), "{}");
+        String ended = get(url, created).getHeaders().getETag();
+        restTemplate.postForEntity("/charge-sessions", new HttpEntity<>("{\"vehicleId\":" + vehicle.getId() + ", \"chargePointId\":1}", jsonHeaders()), Void.class);
+        ResponseEntity<String> poll = get(url, ended);
+
+        // then
+        assertNotEquals(created, ended);
+        assertEquals(HttpStatus.OK, poll.getStatusCode());
+        assertNotEquals(ended, poll.getHeaders().getETag());
+    }
+
+    @Test
+    void getAllForVehicle_sessionEndedWithoutNewerDateUpdated_returnsNewETag() {
+
+        // given an ended session last updated by a node whose clock is ahead
+        ChargeSession endedSession = new ChargeSession(vehicle, chargeSession.getChargePoint());
+        endedSession.setEndTime(System.currentTimeMillis());
+        endedSession.setDateUpdated(System.currentTimeMillis() + 3600000L);
+        chargeSessionListRepository.save(endedSession);
+        String url = "/charge-sessions?vehicleId=" + vehicle.getId();
+        String eTag = get(url, null).getHeaders().getETag();
+
+        // when the open session ends, leaving the count and the latest dateCreated and dateUpdated unchanged
+        restTemplate.put("/charge-sessions/" + chargeSession.getId(), "{}");
+        ResponseEntity<String> poll = get(url, eTag);
+
+        // then
+        assertEquals(HttpStatus.OK, poll.getStatusCode());
+        assertNotEquals(eTag, poll.getHeaders().getETag());
+    }
+
+    @Test
+    void getAllForVehicle_otherPage_hasOtherETag() {
+
+        // when
+        String firstPage = get("/charge-sessions?vehicleId=" + vehicle.getId() + "&limit=1", null).getHeaders().getETag();
+        String sorted = get("/charge-sessions?vehicleId=" + vehicle.getId() + "&limit=1&sort=endTime", null).getHeaders().getETag();
+
+        // then
+        assertNotEquals(firstPage, sorted);
+    }
+
+    @Test
+    void getAllForVehicle_unknownVehicle_returnsNotFound() {
+
+        // when
+        ResponseEntity<String> response = get("/charge-sessions?vehicleId=99999", "\"0\"");
+
+        // then
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    private ResponseEntity<String> get(String url, String ifNoneMatch) {
+        HttpHeaders headers = jsonHeaders();
+        if (ifNoneMatch != null) {
+            headers.setIfNoneMatch(ifNoneMatch);
+        }
+        return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
+    private static HttpHeaders jsonHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, "application/json");
+        headers.set(HttpHeaders.ACCEPT, "application/json");
+        return headers;
+    }
+}
@@ -0,0 +1,46 @@
+package co.bk.task.restapi.web;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * Checks endpoint, repository, charge session and error metrics are published on the Prometheus scrape endpoint.
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+@AutoConfigureObservability
+public class PrometheusEndpointTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void prometheus_scrape_contains_application_metrics() {
+
+        // given
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity("/charge-sessions?vehicleId=10&sort=endTime", String.class).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity("/charge-sessions/99999", String.class).getStatusCode());
+
+        // when
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+
+        // then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String scrape = response.getBody();
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{"));
+        assertTrue(scrape.contains("uri=\"/charge-sessions/{id}\""));
+        assertTrue(scrape.contains("spring_data_repository_invocations_seconds_bucket{"));
+        assertTrue(scrape.contains("charge_sessions_page_size_sessions_bucket{"));
+        assertTrue(scrape.contains("charge_sessions_cost_calculation_seconds_bucket{"));
+        assertTrue(scrape.contains("application_errors_total{application_code=\"RESTAPI-0005\",status=\"404\"} 1.0"));
+        assertTrue(scrape.contains("application_errors_total{application_code=\"RESTAPI-0001\",status=\"400\"} 0.0"));
+    }
+}
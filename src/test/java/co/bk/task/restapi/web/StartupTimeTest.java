@@ -0,0 +1,126 @@
+package co.bk.task.restapi.web;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Start up time of the packaged application, as seen by a load balancer adding a new instance: from launching the JVM to
+ * the first successful GET /charge-sessions/{id}.
+ *
+ * Each mode is started startup.runs times in a new JVM (an in-memory database each, so Liquibase runs every time) and
+ * the median and fastest times are printed and written to build/reports/startup/startup-times.json. Modes: the jar as
+ * built, the jar extracted by "gradle extractBootJar" and the extracted jar with the CDS archive of "gradle cdsArchive",
+ * with Spring AOT when built with -PfastStartup. Run with "gradle -PfastStartup startupBenchmark".
+ */
+@Tag("startup")
+class StartupTimeTest {
+
+    private static final int RUNS = Integer.getInteger("startup.runs", 5);
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(120);
+
+    private static final String PATH = "/charge-sessions/20";
+
+    private record StartupResult(String mode, long runs, double medianMillis, double minMillis) {
+
+        String toJson() {
+            return String.format("{\"mode\":\"%s\",\"runs\":%d,\"medianMillis\":%.1f,\"minMillis\":%.1f}",
+                    mode, runs, medianMillis, minMillis);
+        }
+    }
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    @Test
+    void compare_startup_modes() throws Exception {
+
+        String java = System.getProperty("startup.java", Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        Path jar = Path.of(System.getProperty("startup.jar"));
+        Path fastStartupDir = Path.of(System.getProperty("startup.fastStartupDir"));
+        Path extractedJar = fastStartupDir.resolve(jar.getFileName());
+        boolean aot = Boolean.getBoolean("startup.aot");
+
+        List<StartupResult> results = new ArrayList<>();
+        results.add(run("jar", jar.getParent(), List.of(java, "-jar", jar.toString())));
+        results.add(run("extracted", fastStartupDir, List.of(java, "-jar", extractedJar.toString())));
+        results.add(run(aot ? "aot+cds" : "cds", fastStartupDir, List.of(java, "-XX:SharedArchiveFile=application.jsa",
+                "-Dspring.aot.enabled=" + aot, "-jar", extractedJar.toString())));
+
+        for (StartupResult result : results) {
+            System.out.printf("%-10s runs=%d median=%.1fms min=%.1fms%n", result.mode(), result.runs(), result.medianMillis(), result.minMillis());
+        }
+
+        Path report = Path.of("build", "reports", "startup", "startup-times.json");
+        Files.createDirectories(report.getParent());
+        Files.writeString(report, "[" + String.join(",", results.stream().map(StartupResult::toJson).toList()) + "]\n");
+    }
+
+    private StartupResult run(String mode, Path workingDir, List<String> command) throws Exception {
+
+        long[] startupNanos = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            startupNanos[run] = timeToFirstResponse(mode, workingDir, command);
+        }
+        Arrays.sort(startupNanos);
+        return new StartupResult(mode, RUNS, startupNanos[RUNS / 2] / 1e6, startupNanos[0] / 1e6);
+    }
+
+    private long timeToFirstResponse(String mode, Path workingDir, List<String> command) throws Exception {
+
+        int port = freePort();
+        List<String> arguments = new ArrayList<>(command);
+        arguments.add("--server.port=" + port);
+        URI uri = URI.create("http://localhost:" + port + PATH);
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(arguments)
+                .directory(workingDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            while (System.nanoTime() - start < TIMEOUT.toNanos()) {
+                assertTrue(process.isAlive(), () -> mode + " exited with " + process.exitValue() + " before serving " + PATH);
+                try {
+                    HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 200) {
+                        return System.nanoTime() - start;
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(5);
+            }
+            throw new AssertionError(mode + " did not serve " + PATH + " within " + TIMEOUT);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package co.bk.task.restapi.web;
+
+import co.bk.task.restapi.RestApiApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares request handling on Tomcat's platform thread pool with virtual threads (spring.threads.virtual.enabled).
+ *
+ * The application is started once per mode and driven by more concurrent clients than Tomcat has platform threads (200),
+ * with a mix of single session lookups and list queries. Throughput and p99 latency of each mode are printed and written
+ * to build/reports/load/threading-modes.json. Run with "gradle loadTest"; the load is tuned with the system properties
+ * load.concurrency, load.requestsPerClient and load.warmupRequestsPerClient.
+ */
+@Tag("load")
+class ThreadingModeLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 400);
+
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("load.requestsPerClient", 100);
+
+    private static final int WARMUP_REQUESTS_PER_CLIENT = Integer.getInteger("load.warmupRequestsPerClient", 20);
+
+    private static final String[] PATHS = {
+            "/charge-sessions/20", "/charge-sessions/21", "/charge-sessions/22", "/charge-sessions/24",
+            "/charge-sessions?vehicleId=10&sort=endTime"
+    };
+
+    private record LoadResult(String mode, long requests, long errors, double throughputPerSecond, double p50Millis, double p99Millis) {
+
+        String toJson() {
+            return String.format("{\"mode\":\"%s\",\"requests\":%d,\"errors\":%d,\"throughputPerSecond\":%.1f,\"p50Millis\":%.3f,\"p99Millis\":%.3f}",
+                    mode, requests, errors, throughputPerSecond, p50Millis, p99Millis);
+        }
+    }
+
+    @Test
+    void compare_platform_and_virtual_threads() throws Exception {
+
+        List<LoadResult> results = List.of(run(false), run(true));
+
+        for (LoadResult result : results) {
+            System.out.printf("%-8s requests=%d errors=%d throughput=%.1f/s p50=%.3fms p99=%.3fms%n",
+                    result.mode(), result.requests(), result.errors(), result.throughputPerSecond(), result.p50Millis(), result.p99Millis());
+        }
+
+        Path report = Path.of("build", "reports", "load", "threading-modes.json");
+        Files.createDirectories(report.getParent());
+        Files.writeString(report, "[" + String.join(",", results.stream().map(LoadResult::toJson).toList()) + "]\n");
+
+        for (LoadResult result : results) {
+            assertEquals(0, result.errors(), result.mode() + " mode had failed requests");
+        }
+    }
+
+    private LoadResult run(boolean virtualThreads) throws Exception {
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(RestApiApplication.class)
+                .properties("server.port=0", "spring.threads.virtual.enabled=" + virtualThreads)
+                .run()) {
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient httpClient = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .executor(clients)
+                        .build();
+
+                // Warm up the JIT, connection pool and caches before measuring
+                drive(httpClient, clients, port, WARMUP_REQUESTS_PER_CLIENT, new AtomicLong());
+
+                AtomicLong errors = new AtomicLong();
+                long start = System.nanoTime();
+                long[] latencies = drive(httpClient, clients, port, REQUESTS_PER_CLIENT, errors);
+                long elapsedNanos = System.nanoTime() - start;
+
+                Arrays.sort(latencies);
+                return new LoadResult(virtualThreads ? "virtual" : "platform",
+                        latencies.length,
+                        errors.get(),
+                        latencies.length / (elapsedNanos / 1e9),
+                        percentile(latencies, 0.50) / 1e6,
+                        percentile(latencies, 0.99) / 1e6);
+            }
+        }
+    }
+
+    private static long[] drive(HttpClient httpClient, ExecutorService clients, int port, int requestsPerClient, AtomicLong errors) throws Exception {
+
+        List<Future<long[]>> futures = new ArrayList<>(CONCURRENCY);
+        for (int client = 0; client < CONCURRENCY; client++) {
+            int offset = client;
+            futures.add(clients.submit(() -> {
+                long[] latencies = new long[requestsPerClient];
+                for (int i = 0; i < requestsPerClient; i++) {
+                    HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + PATHS[(offset + i) % PATHS.length]))
+                            .header("Accept", "application/json")
+                            .GET()
+                            .build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - start;
+                }
+                return latencies;
+            }));
+        }
+
+        long[] all = new long[CONCURRENCY * requestsPerClient];
+        int position = 0;
+        for (Future<long[]> future : futures) {
+            long[] latencies = future.get();
+            System.arraycopy(latencies, 0, all, position, latencies.length);
+            position += latencies.length;
+        }
+        return all;
+    }
+
+    private static long percentile(long[] sortedLatencies, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, index)];
+    }
+}
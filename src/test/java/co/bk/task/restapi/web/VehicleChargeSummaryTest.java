@@ -0,0 +1,116 @@
+package co.bk.task.restapi.web;
+
+import co.bk.task.restapi.TestFixtures;
+import co.bk.task.restapi.model.ChargePoint;
+import co.bk.task.restapi.model.Vehicle;
+import co.bk.task.restapi.repository.ChargePointRepository;
+import co.bk.task.restapi.repository.VehicleRepository;
+import co.bk.task.restapi.service.ChargeSessionService;
+import co.bk.task.restapi.service.dto.ChargeSessionDto;
+import co.bk.task.restapi.service.dto.ChargeSummaryDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * Checks the charge summary is maintained as sessions end (calculated and default cost) and matches the sessions.
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+public class VehicleChargeSummaryTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ChargeSessionService chargeSessionService;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private ChargePointRepository chargePointRepository;
+
+    private TestFixtures testFixtures;
+
+    private Vehicle vehicle;
+
+    private ChargePoint chargePoint;
+
+    @BeforeEach
+    void setup() {
+        testFixtures = new TestFixtures(vehicleRepository, chargePointRepository);
+        vehicle = testFixtures.saveVehicle();
+        chargePoint = testFixtures.saveChargePoint();
+    }
+
+    @Test
+    void chargeSummary_counts_ended_sessions() {
+
+        // given the first session is ended with its calculated cost, the second with the default cost by a third
+        ChargeSessionDto first = chargeSessionService.createChargeSession(vehicle.getId(), chargePoint.getId());
+        chargeSessionService.updateChargeSession(first.getId());
+        chargeSessionService.createChargeSession(vehicle.getId(), chargePoint.getId());
+        chargeSessionService.createChargeSession(vehicle.getId(), chargePoint.getId());
+
+        BigDecimal expectedCost = chargeSessionService.getChargeSessionById(first.getId()).getTotalCost()
+                .add(ChargeSessionService.MINIMUM_CONNECTION_FEE);
+        String today = LocalDate.now(ZoneOffset.UTC).toString();
+
+        // when
+        ChargeSummaryDto daily = getSummary("?granularity=day&from=" + today + "&to=" + today).getBody();
+        ChargeSummaryDto monthly = getSummary("?granularity=month").getBody();
+
+        // then
+        assertEquals(2L, daily.getSessionCount());
+        assertEquals(1, daily.getBuckets().size());
+        assertEquals(today, daily.getBuckets().get(0).getPeriod());
+        assertEquals(0, expectedCost.compareTo(daily.getTotalCost()));
+        assertTrue(daily.getEnergyKwh().signum() > 0);
+
+        assertEquals(1, monthly.getBuckets().size());
+        assertEquals(today.substring(0, 7), monthly.getBuckets().get(0).getPeriod());
+        assertEquals(daily.getTotalCost(), monthly.getTotalCost());
+        assertEquals(daily.getEnergyKwh(), monthly.getEnergyKwh());
+    }
+
+    @Test
+    void chargeSummary_includes_sessions_ended_before_rollups() {
+
+        // when vehicle 10 of the initial data: three sessions ended on 2023-08-12
+        ChargeSummaryDto summary = getSummary("?granularity=month&from=2023-08-01&to=2023-08-31", 10L).getBody();
+
+        // then
+        assertEquals(3L, summary.getSessionCount());
+        assertEquals("2023-08", summary.getBuckets().get(0).getPeriod());
+        assertEquals(0, new BigDecimal("33.00").compareTo(summary.getTotalCost()));
+    }
+
+    @Test
+    void chargeSummary_invalid_parameters() {
+
+        assertEquals(HttpStatus.BAD_REQUEST, getSummary("?granularity=week").getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, getSummary("?from=12-08-2023").getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, getSummary("?from=2023-08-12&to=2023-08-11").getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, getSummary("", 99999L).getStatusCode());
+    }
+
+    private ResponseEntity<ChargeSummaryDto> getSummary(String query) {
+        return getSummary(query, vehicle.getId());
+    }
+
+    private ResponseEntity<ChargeSummaryDto> getSummary(String query, Long vehicleId) {
+        return restTemplate.getForEntity("/vehicles/" + vehicleId + "/charge-summary" + query, ChargeSummaryDto.class);
+    }
+}
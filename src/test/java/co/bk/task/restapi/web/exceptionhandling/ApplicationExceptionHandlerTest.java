@@ -0,0 +1,82 @@
+package co.bk.task.restapi.web.exceptionhandling;
+
+import co.bk.task.restapi.config.ApplicationConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.zalando.problem.Problem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the problem bodies are unchanged by the cached, stackless error path (the expected JSON is what
+ * Problem.builder() wrote) and that client errors capture no stack trace.
+ */
+class ApplicationExceptionHandlerTest {
+
+    private final ObjectMapper objectMapper = new ApplicationConfig().defaultObjectMapper();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ApplicationExceptionHandler handler = new ApplicationExceptionHandler(meterRegistry);
+
+    @Test
+    void handleRuntimeException_error_code_with_parameters() throws Exception {
+
+        // when
+        ResponseEntity<Problem> response = handler.handleRuntimeException(
+                new ApplicationException(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_VEHICLE, new String[] { "7" }));
+
+        // then
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("application/json;charset=UTF-8", response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE));
+        assertEquals("{\"title\":\"Not Found\",\"status\":404,\"detail\":\"Vehicle Record with ID 7 not found.\",\"application_code\":\"RESTAPI-0002\"}",
+                objectMapper.writeValueAsString(response.getBody()));
+        assertEquals(1.0, meterRegistry.get(ApplicationExceptionHandler.APPLICATION_ERRORS)
+                .tag("application_code", "RESTAPI-0002").tag("status", "404").counter().count());
+    }
+
+    @Test
+    void handleRuntimeException_constant_problem_reused() throws Exception {
+
+        // when
+        ResponseEntity<Problem> first = handler.handleRuntimeException(new ApplicationException(ApplicationException.ErrorCode.INVALID_SORT_PARAMETER));
+        ResponseEntity<Problem> second = handler.handleRuntimeException(new ApplicationException(ApplicationException.ErrorCode.INVALID_SORT_PARAMETER));
+
+        // then
+        assertSame(first.getBody(), second.getBody());
+        assertEquals(HttpStatus.BAD_REQUEST, first.getStatusCode());
+        assertEquals("{\"title\":\"Bad Request\",\"status\":400,\"detail\":\"Invalid sort parameter supplied. Only startTime, -startTime, endTime and -endTime supported.\",\"application_code\":\"RESTAPI-0004\"}",
+                objectMapper.writeValueAsString(first.getBody()));
+    }
+
+    @Test
+    void handleRuntimeException_unexpected_exception() throws Exception {
+
+        assertEquals("{\"title\":\"Internal Server Error\",\"status\":500,\"detail\":\"boom\",\"application_code\":\"APPLICATION-CODE-NOT-DEFINED\"}",
+                objectMapper.writeValueAsString(handler.handleRuntimeException(new IllegalStateException("boom")).getBody()));
+        assertEquals("{\"title\":\"Internal Server Error\",\"status\":500,\"application_code\":\"APPLICATION-CODE-NOT-DEFINED\"}",
+                objectMapper.writeValueAsString(handler.handleRuntimeException(new IllegalStateException()).getBody()));
+    }
+
+    @Test
+    void applicationException_client_error_stackless() {
+
+        ApplicationException notFound = new ApplicationException(ApplicationException.ErrorCode.RECORD_NOT_FOUND_FOR_CHARGE_SESSION, new String[] { "9" });
+        assertEquals(0, notFound.getStackTrace().length);
+        assertEquals("404 Charge Session with id 9 not found.", notFound.getMessage());
+        assertEquals("Charge Session with id 9 not found.", notFound.getDetail());
+        assertEquals(404, notFound.getHttpStatusCode());
+
+        // An exception with a cause keeps the stack trace for the log
+        ApplicationException interrupted = new ApplicationException(ApplicationException.ErrorCode.CONCURRENT_CHARGE_SESSION_CHANGE,
+                new String[] { "[10]" }, new InterruptedException());
+        assertTrue(interrupted.getStackTrace().length > 0);
+        assertEquals("Charge sessions of vehicle [10] are being changed by another request. Retry the request.", interrupted.getDetail());
+    }
+}
@@ -0,0 +1,54 @@
+package co.bk.task.restapi.web.warmup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * Checks the warm-up drives its requests through the controller before the application reports ready, and reports
+ * its duration.
+ */
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+        "application.warmUp.enabled=true",
+        "application.warmUp.iterations=300",
+        "application.warmUp.threads=2"
+})
+public class WarmUpRunnerTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationAvailability applicationAvailability;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void warmUp_before_ready() {
+
+        // then the duration is reported once
+        assertEquals(1, meterRegistry.get(WarmUpRunner.WARMUP).timer().count());
+        assertTrue(meterRegistry.get(WarmUpRunner.WARMUP).timer().totalTime(TimeUnit.NANOSECONDS) > 0);
+
+        // and the requests cycled through a session, a vehicle's sessions and its export, all successful
+        assertEquals(100, meterRegistry.get("http.server.requests").tag("uri", "/charge-sessions/{id}").tag("status", "200").timer().count());
+        assertEquals(100, meterRegistry.get("http.server.requests").tag("uri", "/charge-sessions").tag("status", "200").timer().count());
+        assertEquals(100, meterRegistry.get("http.server.requests").tag("uri", "/charge-sessions/export").tag("status", "200").timer().count());
+
+        // and the application became ready afterwards
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, applicationAvailability.getReadinessState());
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity("/actuator/health/readiness", String.class).getStatusCode());
+    }
+}